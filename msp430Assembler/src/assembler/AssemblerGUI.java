@@ -6,6 +6,9 @@ import org.fife.ui.rtextarea.RTextScrollPane;
 
 import javax.swing.*;
 import javax.swing.ImageIcon;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
@@ -16,18 +19,26 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AssemblerGUI {
     private static RSyntaxTextArea codeEditor;
     private static JTabbedPane outputTabbedPane;
     private static JTextArea listingArea, tiTxtArea, mapArea, logArea;
+    private static final LogConsole logConsole = new LogConsole(); // logArea'yı besleyen sınırlı, toplu güncellenen log
     private static JTree projectTree;
     private static JSplitPane mainSplitPane;
     private static int lastExplorerSize = 200;
 
     private static JButton compileButton, clearButton, copyButton, linkButton, createMapButton, loadButton;
     private static JToggleButton toggleExplorerButton; // Proje gezginini aç/kapa butonu
-    private static JMenu themeMenu, languageMenu, fileMenu, helpMenu;
+    private static JMenu themeMenu, languageMenu, fileMenu, helpMenu, buildMenu;
+    private static JCheckBoxMenuItem peepholeItem, liveAssembleItem;
     private static JMenuItem lightMode, darkMode, turkishLang, englishLang, userGuideItem;
     private static JMenuItem openFile, saveFile, saveAsFile;
     private static JFrame frame;
@@ -37,8 +48,31 @@ public class AssemblerGUI {
     private static String currentLanguage = "tr";
     private static ImageIcon compileIcon, clearIcon, copyIcon, linkIcon, mapIcon, fileIcon, themeIcon, languageIcon, projectIcon, loadIcon, helpIcon;
     private static JPopupMenu projectPopup;
-    private static JMenuItem compileSelected, linkSelected, refreshTree;
+    private static JMenuItem compileSelected, rebuildSelected, linkSelected, refreshTree;
     private static MemoryView memoryView;
+    private static final File MACRO_CACHE_FILE = new File("obj", "macro-cache.json");
+    private static final File BUILD_MANIFEST_FILE = new File("obj", BuildManifest.FILE_NAME);
+    private static PassTwo pendingListing = null; // Listeleme sekmesine henüz yazılmamış son derleme
+    private static JProgressBar buildProgressBar;
+    private static JButton cancelButton;
+    private static SwingWorker<?, ?> activeWorker = null; // Çalışan arka plan derlemesi/linklemesi
+
+    // Canlı derleme: editör değiştikçe (debounce sonrası) tampon arka planda artımlı olarak yeniden derlenir
+    private static final int LIVE_DEBOUNCE_MILLIS = 400;
+    private static final ExecutorService liveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "live-assembler");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final AtomicInteger liveGeneration = new AtomicInteger(); // Eski sonuçları atmak için
+    private static Timer liveTimer;
+    private static LiveAssembler liveAssembler;
+    private static File liveFile;
+    private static boolean livePeephole;
+    private static JLabel liveStatusLabel;
+
+    /** Başarılı linklemenin EDT'ye aktarılan sonucu */
+    private record LinkResult(Linker linker, String baseName, String tiTxt) {}
 
     public static void main(String[] args) {
         frame = new JFrame("MSP430 Assembler");
@@ -64,6 +98,7 @@ public class AssemblerGUI {
         memoryView = new MemoryView();
         setupButtons();
         setupActionListeners();
+        setupLiveAssembly();
         loadAndSetIcons();
 
         JSplitPane editorMemorySplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, editorScrollPane, memoryView);
@@ -77,6 +112,9 @@ public class AssemblerGUI {
         buttonPanel.add(createMapButton);
         buttonPanel.add(loadButton);
         buttonPanel.add(copyButton);
+        buttonPanel.add(buildProgressBar);
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(liveStatusLabel);
 
         JSplitPane editorOutputSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, editorMemorySplit, outputTabbedPane);
         editorOutputSplit.setResizeWeight(0.6);
@@ -134,6 +172,16 @@ public class AssemblerGUI {
         languageMenu.add(englishLang);
         menuBar.add(languageMenu);
 
+        // Build Menu
+        buildMenu = new JMenu();
+        peepholeItem = new JCheckBoxMenuItem();
+        peepholeItem.setSelected(true); // Peephole optimizasyonu varsayılan olarak açık
+        buildMenu.add(peepholeItem);
+        liveAssembleItem = new JCheckBoxMenuItem();
+        liveAssembleItem.setSelected(true); // Yazarken derleme varsayılan olarak açık
+        buildMenu.add(liveAssembleItem);
+        menuBar.add(buildMenu);
+
         // Help Menu
         helpMenu = new JMenu();
         userGuideItem = new JMenuItem();
@@ -147,6 +195,7 @@ public class AssemblerGUI {
         tiTxtArea = new JTextArea();
         mapArea = new JTextArea();
         logArea = new JTextArea();
+        logConsole.attach(logArea);
 
         JTextArea[] textAreas = {listingArea, tiTxtArea, mapArea, logArea};
         for (JTextArea ta : textAreas) {
@@ -158,6 +207,16 @@ public class AssemblerGUI {
         outputTabbedPane.addTab("TI-TXT", new JScrollPane(tiTxtArea));
         outputTabbedPane.addTab("Map", new JScrollPane(mapArea));
         outputTabbedPane.addTab("Log", new JScrollPane(logArea));
+
+        // Listeleme sadece Assembler sekmesi gösterildiğinde üretilir
+        outputTabbedPane.addChangeListener(e -> showPendingListing());
+    }
+
+    private static void showPendingListing() {
+        if (pendingListing != null && outputTabbedPane.getSelectedIndex() == 0) {
+            listingArea.setText(pendingListing.getFormattedOutput());
+            pendingListing = null;
+        }
     }
 
     private static void setupButtons() {
@@ -168,6 +227,11 @@ public class AssemblerGUI {
         linkButton = new JButton();
         createMapButton = new JButton();
         loadButton = new JButton();
+        cancelButton = new JButton();
+        buildProgressBar = new JProgressBar(0, 100);
+        buildProgressBar.setStringPainted(true);
+        buildProgressBar.setString("");
+        buildProgressBar.setPreferredSize(new Dimension(220, 25));
 
         // Proje gezgini butonu sadece ikon
         toggleExplorerButton.setPreferredSize(new Dimension(45, 35));
@@ -183,6 +247,7 @@ public class AssemblerGUI {
         loadButton.setPreferredSize(buttonSize); // Boyutunu ayarla
         createMapButton.setEnabled(false);
         loadButton.setEnabled(false); // Başlangıçta pasif
+        cancelButton.setEnabled(false);
     }
 
     private static void setupActionListeners() {
@@ -210,7 +275,8 @@ public class AssemblerGUI {
             listingArea.setText("");
             tiTxtArea.setText("");
             mapArea.setText("");
-            logArea.setText("");
+            logConsole.clear();
+            pendingListing = null;
             createMapButton.setEnabled(false);
             loadButton.setEnabled(false);
             lastSuccessfulLinker = null;
@@ -218,6 +284,9 @@ public class AssemblerGUI {
         linkButton.addActionListener(e -> linkObjectFilesAction());
         createMapButton.addActionListener(e -> createMapFileAction());
         loadButton.addActionListener(e -> loadIntoMemoryAction());
+        cancelButton.addActionListener(e -> {
+            if (activeWorker != null) activeWorker.cancel(true);
+        });
         copyButton.addActionListener(e -> {
             Component selectedComponent = outputTabbedPane.getSelectedComponent();
             if (selectedComponent instanceof JScrollPane) {
@@ -279,79 +348,158 @@ public class AssemblerGUI {
 
     private static void compileCodeAction() {
         if (currentFile == null) {
-            logArea.setText("Derlemek için önce bir dosya açın veya kaydedin.");
+            logConsole.setText("Derlemek için önce bir dosya açın veya kaydedin.");
             outputTabbedPane.setSelectedIndex(3);
             return;
         }
-        try {
-            // Editördeki içeriği dosyaya kaydet
-            saveFileAction(false);
-            // Dosyayı derle
-            compileFile(currentFile);
-        } catch (Exception ex) {
-            logArea.setText("HATA: " + ex.getMessage() + "\n");
-            ex.printStackTrace(new PrintStream(new JTextAreaOutputStream(logArea)));
-            outputTabbedPane.setSelectedIndex(3);
-        }
+        if (activeWorker != null) return;
+        // Editördeki içeriği dosyaya kaydet
+        saveFileAction(false);
+        File sourceFile = currentFile;
+        boolean peephole = peepholeItem.isSelected();
+
+        // Dosyayı arka planda derle; sadece listeleme EDT'de gösterilir
+        startWorker(new BuildWorker<AssemblyJob.Result>(3) {
+            @Override
+            protected AssemblyJob.Result doInBackground() throws Exception {
+                log("Derleme işlemi başlatıldı: " + sourceFile.getPath() + "\n");
+                File objDir = new File("obj");
+                if (!objDir.exists()) objDir.mkdirs();
+                // Açık dosya her zaman derlenir (listeleme için); manifest sonraki toplu derlemeler için güncellenir
+                BuildManifest manifest = BuildManifest.load(BUILD_MANIFEST_FILE);
+                AssemblyJob.Result result = new AssemblyJob(sourceFile, objDir, null, peephole, this, manifest, false).call();
+                // Kodlama hatalarında listeleme HATA satırlarıyla yine gösterilir; diğer hatalar fırlatılır
+                if (!result.isSuccess() && result.passTwo() == null) throw result.error();
+                saveManifest(manifest);
+                return result;
+            }
+
+            @Override
+            void finished(AssemblyJob.Result result) {
+                // Listeleme burada üretilmez; Assembler sekmesi gösterildiğinde bir kez oluşturulur
+                pendingListing = result.passTwo();
+                listingArea.setText("");
+                if (result.isSuccess()) {
+                    logConsole.append(".obj dosyası başarıyla oluşturuldu: " + result.objFile().getPath() + "\n");
+                } else {
+                    logConsole.append("### HATA: " + sourceFile.getName() + " derlenemedi, .obj yazılmadı! ###\n");
+                    logConsole.append(result.error().getMessage() + "\n");
+                }
+                outputTabbedPane.setSelectedIndex(0);
+                showPendingListing();
+                logConsole.append("Assembler listeleme çıktısı oluşturuldu.\n");
+            }
+
+            @Override
+            void failed(Throwable error) {
+                logConsole.setText("HATA: " + error.getMessage() + "\n");
+                error.printStackTrace(logConsole.printStream());
+                outputTabbedPane.setSelectedIndex(3);
+            }
+        });
     }
 
-    private static void compileSelectedFiles() {
+    /**
+     * Seçili .asm dosyalarını derler. force ise manifest ve macro önbelleği yok sayılır: seçili dosyalar ve
+     * kullandıkları .mlib kütüphaneleri yeniden işlenir; diğer kütüphanelerin önbellek kayıtları korunur
+     * (komut satırındaki --force).
+     */
+    private static void compileSelectedFiles(boolean force) {
         TreePath[] paths = projectTree.getSelectionPaths();
-        if (paths == null) return;
+        if (paths == null || activeWorker != null) return;
 
-        logArea.setText(""); // Logu temizle
-        int successCount = 0;
+        List<File> sources = new ArrayList<>();
         for (TreePath path : paths) {
             DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
             FileNode fileNode = (FileNode) node.getUserObject();
             File file = fileNode.getFile();
             if (file.isFile() && file.getName().endsWith(".asm")) {
-                try {
-                    logArea.append("--- Derleniyor: " + file.getName() + " ---\n");
-                    compileFile(file);
-                    logArea.append("--- " + file.getName() + " başarıyla derlendi. ---\n\n");
-                    successCount++;
-                } catch (Exception e) {
-                    logArea.append("### HATA: " + file.getName() + " derlenemedi! ###\n");
-                    logArea.append(e.getMessage() + "\n\n");
-                }
+                sources.add(file);
             }
         }
-        logArea.append("Toplam " + successCount + " dosya derlendi.\n");
-        outputTabbedPane.setSelectedIndex(3);
-    }
-
-    private static void compileFile(File sourceFile) throws IOException {
-        logArea.append("Derleme işlemi başlatıldı: " + sourceFile.getPath() + "\n");
-        PassOne passOne = new PassOne();
-        passOne.processFile(sourceFile.getPath());
-        List<Instruction> instructions = passOne.getInstructions();
-        SymbolTable symbolTable = passOne.getSymbolTable();
-
-        PassTwo passTwo = new PassTwo(symbolTable);
-        passTwo.assemble(instructions);
+        boolean peephole = peepholeItem.isSelected();
+
+        logConsole.clear(); // Logu temizle
+        startWorker(new BuildWorker<List<AssemblyJob.Result>>(3 * Math.max(1, sources.size())) {
+            private String cacheWarning = null;
+
+            @Override
+            protected List<AssemblyJob.Result> doInBackground() {
+                // Aynı .mlib kütüphanesi grup içinde yalnızca bir kez ayrıştırılsın
+                MacroLibraryCache macroCache = MacroLibraryCache.load(MACRO_CACHE_FILE);
+                if (force) macroCache.reparseAll();
+                // Sadece son derlemeden beri değişen dosyalar derlenir
+                BuildManifest manifest = BuildManifest.load(BUILD_MANIFEST_FILE);
+                if (force) sources.forEach(manifest::forget);
+                // Dosyalar paralel derlenir; sonuçlar seçim sırasıyla loglanır
+                List<AssemblyJob.Result> results = BuildScheduler.build(sources, new File("obj"), macroCache, peephole,
+                        Runtime.getRuntime().availableProcessors(), this, manifest);
+                saveManifest(manifest);
+                if (macroCache.isDirty()) {
+                    try {
+                        macroCache.save(MACRO_CACHE_FILE);
+                    } catch (IOException e) {
+                        cacheWarning = "Uyarı: Macro önbelleği yazılamadı: " + e.getMessage() + "\n";
+                    }
+                }
+                return results;
+            }
 
-        String output = passTwo.getFormattedOutput();
-        listingArea.setText(output);
-        outputTabbedPane.setSelectedIndex(0);
-        logArea.append("Assembler listeleme çıktısı oluşturuldu.\n");
+            @Override
+            void finished(List<AssemblyJob.Result> results) {
+                int successCount = 0;
+                int upToDateCount = 0;
+                for (AssemblyJob.Result result : results) {
+                    String name = result.source().getName();
+                    if (result.upToDate()) {
+                        logConsole.append("--- " + name + " güncel, derleme atlandı (" + result.objFile().getPath() + "). ---\n\n");
+                        upToDateCount++;
+                        continue;
+                    }
+                    logConsole.append("--- Derleniyor: " + name + " ---\n");
+                    logConsole.append("Derleme işlemi başlatıldı: " + result.source().getPath() + "\n");
+                    if (result.isSuccess()) {
+                        logConsole.append(".obj dosyası başarıyla oluşturuldu: " + result.objFile().getPath() + "\n");
+                        logConsole.append("--- " + name + " başarıyla derlendi. ---\n\n");
+                        pendingListing = result.passTwo();
+                        listingArea.setText("");
+                        successCount++;
+                    } else {
+                        logConsole.append("### HATA: " + name + " derlenemedi! ###\n");
+                        logConsole.append(result.error().getMessage() + "\n\n");
+                    }
+                }
+                if (cacheWarning != null) logConsole.append(cacheWarning);
+                logConsole.append("Toplam " + successCount + " dosya derlendi"
+                        + (upToDateCount > 0 ? ", " + upToDateCount + " dosya güncel" : "") + ".\n");
+                outputTabbedPane.setSelectedIndex(3);
+            }
 
-        String baseName = sourceFile.getName().replaceFirst("[.][^.]+$", "");
-        File objDir = new File("obj");
-        if (!objDir.exists()) objDir.mkdirs();
-        File objFile = new File(objDir, baseName + ".obj");
+            @Override
+            void failed(Throwable error) {
+                logConsole.append("### HATA: Derleme tamamlanamadı! ###\n" + error.getMessage() + "\n");
+                outputTabbedPane.setSelectedIndex(3);
+            }
+        });
+    }
 
-        ObjectFileWriter.writeJson(objFile.getPath(), instructions, symbolTable, passTwo.getRelocationTable());
-        logArea.append(".obj dosyası başarıyla oluşturuldu: " + objFile.getPath() + "\n");
+    /** Manifest değiştiyse diske yazar; yazılamazsa sadece uyarır (sonraki derleme her şeyi yeniden derler). */
+    private static void saveManifest(BuildManifest manifest) {
+        if (!manifest.isDirty()) return;
+        try {
+            manifest.save(BUILD_MANIFEST_FILE);
+        } catch (IOException e) {
+            System.err.println("Uyarı: Derleme manifesti yazılamadı: " + e.getMessage());
+        }
     }
 
     private static void linkObjectFilesAction() {
-        logArea.setText("[Linker] 'obj' klasöründeki tüm dosyalar linkleniyor...\n");
+        logConsole.setText("[Linker] 'obj' klasöründeki tüm dosyalar linkleniyor...\n");
         File objDir = new File("obj/");
         File[] objFiles = objDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".obj"));
 
         if (objFiles == null || objFiles.length == 0) {
-            logArea.append("HATA: 'obj/' klasöründe linklenecek .obj dosyası bulunamadı!");
+            logConsole.append("HATA: 'obj/' klasöründe linklenecek .obj dosyası bulunamadı!");
             outputTabbedPane.setSelectedIndex(3);
             return;
         }
@@ -375,7 +523,7 @@ public class AssemblerGUI {
         }
 
         if (filesToLink.isEmpty()) {
-            logArea.setText("Linklemek için .obj dosyası seçilmedi.");
+            logConsole.setText("Linklemek için .obj dosyası seçilmedi.");
             outputTabbedPane.setSelectedIndex(3);
             return;
         }
@@ -384,7 +532,8 @@ public class AssemblerGUI {
     }
 
     private static void linkFiles(List<File> objFiles) {
-        logArea.setText("[Linker] İşlem başlatıldı...\n");
+        if (activeWorker != null) return;
+        logConsole.setText("[Linker] İşlem başlatıldı...\n");
         lastSuccessfulLinker = null;
         createMapButton.setEnabled(false);
         loadButton.setEnabled(false);
@@ -392,53 +541,256 @@ public class AssemblerGUI {
         List<String> paths = new ArrayList<>();
         List<String> baseNames = new ArrayList<>();
         for (File f : objFiles) {
-            logArea.append("- Linklenecek dosya: " + f.getName() + "\n");
+            logConsole.append("- Linklenecek dosya: " + f.getName() + "\n");
             paths.add(f.getPath());
             baseNames.add(f.getName().replaceFirst("[.][^.]+$", ""));
         }
+        String baseName = String.join("-", baseNames);
+
+        // Okuma, linkleme ve TI-TXT yazma arka planda; sonuç EDT'de gösterilir
+        startWorker(new BuildWorker<LinkResult>(2) {
+            @Override
+            protected LinkResult doInBackground() throws Exception {
+                phaseStarted(baseName, Phase.LINK);
+                ObjectFileReader.ObjData data = ObjectFileReader.readMultiple(paths);
+                log("[Linker] Tüm .obj dosyaları okundu ve birleştirildi.\n");
+
+                BuildProgress.checkCancelled();
+                Linker linker = new Linker(data.instructions, data.symbolTable, data.relocations);
+                linker.link();
+                log("[Linker] Semboller çözüldü ve bellek segmentleri oluşturuldu.\n");
+
+                BuildProgress.checkCancelled();
+                phaseStarted(baseName, Phase.TI_TXT_WRITE);
+                File tiTxtDir = new File("TI-TXT");
+                if (!tiTxtDir.exists()) {
+                    tiTxtDir.mkdirs();
+                    log("-> 'TI-TXT/' klasörü oluşturuldu.\n");
+                }
+                File outputFile = new File(tiTxtDir, baseName + ".txt");
 
-        try {
-            ObjectFileReader.ObjData data = ObjectFileReader.readMultiple(paths);
-            logArea.append("[Linker] Tüm .obj dosyaları okundu ve birleştirildi.\n");
+                ExecutableWriter.writeTiTxt(linker.getSegments(), outputFile.getPath());
+                log("BAŞARILI: Linkleme tamamlandı! Çıktı: " + outputFile.getPath() + "\n");
 
-            Linker linker = new Linker(data.instructions, data.symbolTable, data.relocations);
-            linker.link();
-            logArea.append("[Linker] Semboller çözüldü ve bellek segmentleri oluşturuldu.\n");
+                String content = new String(Files.readAllBytes(Paths.get(outputFile.getPath())));
+                return new LinkResult(linker, baseName, content);
+            }
 
-            File tiTxtDir = new File("TI-TXT");
-            if (!tiTxtDir.exists()) {
-                tiTxtDir.mkdirs();
-                logArea.append("-> 'TI-TXT/' klasörü oluşturuldu.\n");
+            @Override
+            void finished(LinkResult result) {
+                lastOutputBaseName = result.baseName();
+                lastSuccessfulLinker = result.linker();
+                createMapButton.setEnabled(true);
+                loadButton.setEnabled(true);
+
+                tiTxtArea.setText(result.tiTxt());
+                outputTabbedPane.setSelectedIndex(1);
             }
-            lastOutputBaseName = String.join("-", baseNames);
-            String outputFileName = lastOutputBaseName + ".txt";
-            File outputFile = new File(tiTxtDir, outputFileName);
 
-            ExecutableWriter.writeTiTxt(linker.getSegments(), outputFile.getPath());
-            logArea.append("BAŞARILI: Linkleme tamamlandı! Çıktı: " + outputFile.getPath() + "\n");
+            @Override
+            void failed(Throwable error) {
+                logConsole.append("\nHATA: Linkleme sırasında bir sorun oluştu!\n" + error.getMessage());
+                error.printStackTrace(logConsole.printStream());
+                outputTabbedPane.setSelectedIndex(3);
+            }
+        });
+    }
 
-            lastSuccessfulLinker = linker;
-            createMapButton.setEnabled(true);
-            loadButton.setEnabled(true);
+    /**
+     * Editör belgesini dinler; her değişiklikte debounce zamanlayıcısı yeniden başlar. RSyntaxTextArea.read()
+     * belgeyi değiştirdiği için dinleyici yeni belgeye taşınır.
+     */
+    private static void setupLiveAssembly() {
+        liveStatusLabel = new JLabel();
+        liveTimer = new Timer(LIVE_DEBOUNCE_MILLIS, e -> runLiveAssembly());
+        liveTimer.setRepeats(false);
+
+        DocumentListener listener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleLiveAssembly();
+            }
 
-            String content = new String(Files.readAllBytes(Paths.get(outputFile.getPath())));
-            tiTxtArea.setText(content);
-            outputTabbedPane.setSelectedIndex(1);
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleLiveAssembly();
+            }
 
-        } catch (Exception e) {
-            logArea.append("\nHATA: Linkleme sırasında bir sorun oluştu!\n" + e.getMessage());
-            e.printStackTrace(new PrintStream(new JTextAreaOutputStream(logArea)));
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Sadece stil değişikliği; metin aynı
+            }
+        };
+        codeEditor.getDocument().addDocumentListener(listener);
+        codeEditor.addPropertyChangeListener("document", e -> {
+            if (e.getOldValue() instanceof Document old) old.removeDocumentListener(listener);
+            ((Document) e.getNewValue()).addDocumentListener(listener);
+            scheduleLiveAssembly();
+        });
+        liveAssembleItem.addActionListener(e -> {
+            if (liveAssembleItem.isSelected()) {
+                scheduleLiveAssembly();
+            } else {
+                liveGeneration.incrementAndGet(); // Yoldaki sonucu gösterme
+                liveStatusLabel.setText("");
+            }
+        });
+    }
+
+    private static void scheduleLiveAssembly() {
+        if (liveAssembleItem.isSelected()) liveTimer.restart();
+    }
+
+    /** Editör içeriğini (kaydetmeden) canlı derleme iş parçacığında artımlı olarak derler. */
+    private static void runLiveAssembly() {
+        if (!liveAssembleItem.isSelected() || activeWorker != null) return;
+        File file = currentFile;
+        boolean peephole = peepholeItem.isSelected();
+        if (liveAssembler == null || !Objects.equals(liveFile, file) || livePeephole != peephole) {
+            String name = file != null ? file.getName() : "editor.asm";
+            String baseDir = (file != null ? file.getAbsoluteFile().getParentFile() : new File(".")).getAbsolutePath();
+            liveAssembler = new LiveAssembler(name, baseDir, peephole);
+            liveFile = file;
+            livePeephole = peephole;
+        }
+        LiveAssembler assembler = liveAssembler;
+        String text = codeEditor.getText();
+        int generation = liveGeneration.incrementAndGet();
+        liveExecutor.execute(() -> {
+            LiveAssembler.Result result;
+            try {
+                result = assembler.update(text);
+            } catch (RuntimeException e) {
+                result = new LiveAssembler.Result(null, 1, String.valueOf(e.getMessage()), 0, 0);
+            }
+            LiveAssembler.Result shown = result;
+            SwingUtilities.invokeLater(() -> {
+                if (generation == liveGeneration.get()) showLiveResult(shown);
+            });
+        });
+    }
+
+    private static void showLiveResult(LiveAssembler.Result result) {
+        if (result.listing() != null) {
+            pendingListing = null; // Canlı listeleme daha yeni
+            int caret = listingArea.getCaretPosition();
+            listingArea.setText(result.listing());
+            listingArea.setCaretPosition(Math.min(caret, listingArea.getDocument().getLength()));
+        }
+        if (result.error() != null) {
+            liveStatusLabel.setForeground(Color.RED);
+            liveStatusLabel.setText("Canlı: " + result.error());
+        } else if (result.errorCount() > 0) {
+            liveStatusLabel.setForeground(Color.RED);
+            liveStatusLabel.setText("Canlı: " + result.errorCount() + " hatalı satır");
+        } else {
+            liveStatusLabel.setForeground(UIManager.getColor("Label.foreground"));
+            liveStatusLabel.setText("Canlı: hata yok (" + result.reencoded() + "/" + result.total() + " komut yeniden kodlandı)");
+        }
+    }
+
+    /** Arka plan işini başlatır; bitene kadar derleme/linkleme kontrolleri pasif, iptal butonu aktiftir. */
+    private static void startWorker(BuildWorker<?> worker) {
+        activeWorker = worker;
+        setBuildRunning(true);
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                buildProgressBar.setValue((Integer) evt.getNewValue());
+            }
+        });
+        worker.execute();
+    }
+
+    private static void setBuildRunning(boolean running) {
+        compileButton.setEnabled(!running);
+        linkButton.setEnabled(!running);
+        compileSelected.setEnabled(!running);
+        rebuildSelected.setEnabled(!running);
+        linkSelected.setEnabled(!running);
+        cancelButton.setEnabled(running);
+        buildProgressBar.setValue(running ? 0 : buildProgressBar.getMaximum());
+        if (running) buildProgressBar.setString("");
+    }
+
+    /**
+     * Derleme/linkleme için SwingWorker. Ağır iş doInBackground'da yapılır; log satırları ve
+     * aşama bilgisi publish ile EDT'ye aktarılır, sonuç finished/failed ile EDT'de gösterilir.
+     * İptal edilirse iş parçacığı kesilir ve çekirdek aşama aralarında durur.
+     */
+    private abstract static class BuildWorker<T> extends SwingWorker<T, BuildWorker.Update> implements BuildProgress {
+
+        /** Log satırı veya aşama (ilerleme çubuğu metni) güncellemesi */
+        record Update(String logLine, String status) {}
+
+        private final int totalSteps;
+        private final AtomicInteger steps = new AtomicInteger();
+
+        BuildWorker(int totalSteps) {
+            this.totalSteps = totalSteps;
+        }
+
+        /** Paralel işlerden çağrılabilir; publish ve setProgress thread-safe'tir. */
+        @Override
+        public void phaseStarted(String item, Phase phase) {
+            int done = steps.getAndIncrement();
+            setProgress(Math.min(100, done * 100 / totalSteps));
+            publish(new Update(null, item + ": " + phase.getLabel()));
+        }
+
+        void log(String line) {
+            publish(new Update(line, null));
+        }
+
+        @Override
+        protected void process(List<Update> chunks) {
+            for (Update update : chunks) {
+                if (update.logLine() != null) logConsole.append(update.logLine());
+                if (update.status() != null) buildProgressBar.setString(update.status());
+            }
+        }
+
+        @Override
+        protected final void done() {
+            activeWorker = null;
+            setBuildRunning(false);
+            try {
+                finished(get());
+                buildProgressBar.setString("");
+            } catch (CancellationException e) {
+                cancelled();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException) {
+                    cancelled();
+                } else {
+                    buildProgressBar.setString("HATA");
+                    failed(e.getCause());
+                }
+            }
+        }
+
+        private void cancelled() {
+            buildProgressBar.setValue(0);
+            buildProgressBar.setString("İptal edildi");
+            logConsole.append("İşlem kullanıcı tarafından iptal edildi.\n");
             outputTabbedPane.setSelectedIndex(3);
         }
+
+        /** EDT'de, başarılı sonuçla çağrılır. */
+        abstract void finished(T result);
+
+        /** EDT'de, hata ile çağrılır. */
+        abstract void failed(Throwable error);
     }
 
     private static void createMapFileAction() {
         if (lastSuccessfulLinker == null) {
-            logArea.append("\nHATA: Map dosyası oluşturmak için önce başarılı bir linkleme işlemi yapılmalıdır.");
+            logConsole.append("\nHATA: Map dosyası oluşturmak için önce başarılı bir linkleme işlemi yapılmalıdır.");
             outputTabbedPane.setSelectedIndex(3);
             return;
         }
-        logArea.append("\n[Map Oluşturucu] İşlem başlatıldı...\n");
+        logConsole.append("\n[Map Oluşturucu] İşlem başlatıldı...\n");
         try {
             File tiTxtDir = new File("TI-TXT");
             if (!tiTxtDir.exists()) tiTxtDir.mkdirs();
@@ -448,37 +800,37 @@ public class AssemblerGUI {
             File mapFile = new File(tiTxtDir, mapFileName);
 
             MapFileWriter.writeMapFile(mapFile.getPath(), tiTxtFileName, lastSuccessfulLinker);
-            logArea.append("BAŞARILI: Map dosyası oluşturuldu! Çıktı: " + mapFile.getPath() + "\n");
+            logConsole.append("BAŞARILI: Map dosyası oluşturuldu! Çıktı: " + mapFile.getPath() + "\n");
 
             String content = new String(Files.readAllBytes(Paths.get(mapFile.getPath())));
             mapArea.setText(content);
             outputTabbedPane.setSelectedIndex(2);
 
         } catch (IOException e) {
-            logArea.append("\nHATA: Map dosyası yazılırken bir sorun oluştu!\n" + e.getMessage());
-            e.printStackTrace(new PrintStream(new JTextAreaOutputStream(logArea)));
+            logConsole.append("\nHATA: Map dosyası yazılırken bir sorun oluştu!\n" + e.getMessage());
+            e.printStackTrace(logConsole.printStream());
             outputTabbedPane.setSelectedIndex(3);
         }
     }
 
     private static void loadIntoMemoryAction() {
         if (lastSuccessfulLinker == null) {
-            logArea.append("\nHATA: Belleğe yüklemek için önce başarılı bir linkleme işlemi yapılmalıdır.");
+            logConsole.append("\nHATA: Belleğe yüklemek için önce başarılı bir linkleme işlemi yapılmalıdır.");
             outputTabbedPane.setSelectedIndex(3);
             return;
         }
-        logArea.append("\n[Loader] Bellek görüntüsü yükleniyor...\n");
+        logConsole.append("\n[Loader] Bellek görüntüsü yükleniyor...\n");
         try {
             Loader loader = new Loader(lastSuccessfulLinker.getSegments());
-            byte[] memoryImage = loader.getMemoryImage();
-            memoryView.loadMemory(memoryImage);
+            MemoryImage memoryImage = loader.getMemoryImage();
+            memoryView.loadMemory(memoryImage, lastSuccessfulLinker.getSymbolTable());
 
-            logArea.append("BAŞARILI: Program belleğe yüklendi. Bellek görünümü sağ tarafta güncellendi.\n");
+            logConsole.append("BAŞARILI: Program belleğe yüklendi. Bellek görünümü sağ tarafta güncellendi.\n");
             // Bellek görünümü artık her zaman görünür olduğu için sekmeyi değiştirmeye gerek yok.
 
         } catch (Exception e) {
-            logArea.append("\nHATA: Belleğe yükleme sırasında bir sorun oluştu!\n" + e.getMessage());
-            e.printStackTrace(new PrintStream(new JTextAreaOutputStream(logArea)));
+            logConsole.append("\nHATA: Belleğe yükleme sırasında bir sorun oluştu!\n" + e.getMessage());
+            e.printStackTrace(logConsole.printStream());
             outputTabbedPane.setSelectedIndex(3);
         }
     }
@@ -573,6 +925,8 @@ public class AssemblerGUI {
             toggleExplorerButton.setToolTipText("Proje Gezginini Aç/Kapa");
             compileButton.setText("Derle");
             compileButton.setToolTipText("Derle");
+            cancelButton.setText("İptal");
+            cancelButton.setToolTipText("Çalışan derlemeyi/linklemeyi iptal et");
             clearButton.setText("Temizle");
             clearButton.setToolTipText("Temizle");
             copyButton.setText("Kopyala");
@@ -593,6 +947,9 @@ public class AssemblerGUI {
             outputTabbedPane.setTitleAt(3, "Günlük");
             helpMenu.setText("Yardım");
             userGuideItem.setText("Kullanıcı Kılavuzu");
+            buildMenu.setText("Derleme");
+            peepholeItem.setText("Peephole Optimizasyonu");
+            liveAssembleItem.setText("Yazarken Derle");
         } else {
             frame.setTitle("MSP430 Assembler");
             themeMenu.setText("Theme");
@@ -604,6 +961,8 @@ public class AssemblerGUI {
             toggleExplorerButton.setToolTipText("Toggle Project Explorer");
             compileButton.setText("Compile");
             compileButton.setToolTipText("Compile");
+            cancelButton.setText("Cancel");
+            cancelButton.setToolTipText("Cancel the running build/link");
             clearButton.setText("Clear");
             clearButton.setToolTipText("Clear");
             copyButton.setText("Copy");
@@ -624,6 +983,9 @@ public class AssemblerGUI {
             outputTabbedPane.setTitleAt(3, "Log");
             helpMenu.setText("Help");
             userGuideItem.setText("User Guide");
+            buildMenu.setText("Build");
+            peepholeItem.setText("Peephole Optimization");
+            liveAssembleItem.setText("Assemble As You Type");
         }
     }
 
@@ -639,15 +1001,18 @@ public class AssemblerGUI {
         // --- Sağ Tık Menüsü ---
         projectPopup = new JPopupMenu();
         compileSelected = new JMenuItem("Seçilenleri Derle");
+        rebuildSelected = new JMenuItem("Seçilenleri Yeniden Derle");
         linkSelected = new JMenuItem("Seçilenleri Linkle");
         refreshTree = new JMenuItem("Yenile");
 
         // Set icons for the popup menu items right after creation
         compileSelected.setIcon(loadIcon("/resources/icons/compile.png", 16, 16));
+        rebuildSelected.setIcon(loadIcon("/resources/icons/compile.png", 16, 16));
         linkSelected.setIcon(loadIcon("/resources/icons/compile.png", 16, 16)); // TODO: Ayrı ikon
         refreshTree.setIcon(loadIcon("/resources/icons/clear.png", 16, 16)); // TODO: Ayrı ikon
 
-        compileSelected.addActionListener(e -> compileSelectedFiles());
+        compileSelected.addActionListener(e -> compileSelectedFiles(false));
+        rebuildSelected.addActionListener(e -> compileSelectedFiles(true));
         linkSelected.addActionListener(e -> linkSelectedFiles());
         refreshTree.addActionListener(e -> {
             DefaultMutableTreeNode rootNode = (DefaultMutableTreeNode) projectTree.getModel().getRoot();
@@ -657,6 +1022,7 @@ public class AssemblerGUI {
         });
 
         projectPopup.add(compileSelected);
+        projectPopup.add(rebuildSelected);
         projectPopup.add(linkSelected);
         projectPopup.add(new JSeparator());
         projectPopup.add(refreshTree);
@@ -670,6 +1036,7 @@ public class AssemblerGUI {
                     TreePath[] paths = projectTree.getSelectionPaths();
                     if (paths == null) {
                         compileSelected.setEnabled(false);
+                        rebuildSelected.setEnabled(false);
                         linkSelected.setEnabled(false);
                         projectPopup.show(e.getComponent(), e.getX(), e.getY());
                         return;
@@ -685,6 +1052,7 @@ public class AssemblerGUI {
                     }
 
                     compileSelected.setEnabled(hasAsm);
+                    rebuildSelected.setEnabled(hasAsm);
                     linkSelected.setEnabled(hasObj);
 
                     projectPopup.show(e.getComponent(), e.getX(), e.getY());
@@ -913,16 +1281,3 @@ class FileTreeCellRenderer extends javax.swing.tree.DefaultTreeCellRenderer {
         return this;
     }
 }
-
-// Helper class to redirect PrintStream to a JTextArea
-class JTextAreaOutputStream extends OutputStream {
-    private final JTextArea textArea;
-    public JTextAreaOutputStream(JTextArea textArea) {
-        this.textArea = textArea;
-    }
-    @Override
-    public void write(int b) throws IOException {
-        textArea.append(String.valueOf((char)b));
-        textArea.setCaretPosition(textArea.getDocument().getLength());
-    }
-}
\ No newline at end of file
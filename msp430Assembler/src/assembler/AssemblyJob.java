@@ -0,0 +1,130 @@
+package assembler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Tek bir .asm dosyasının derleme işi. Her iş kendi PassOne/PassTwo, SymbolTable ve SectionManager
+ * örneklerini oluşturur; işler arasında paylaşılan tek şey değişmez OpcodeTable/RegisterTable tabloları
+ * ve senkronize MacroLibraryCache'tir. Bu yüzden birden çok iş aynı anda güvenle çalıştırılabilir.
+ */
+public class AssemblyJob implements Callable<AssemblyJob.Result> {
+
+    /**
+     * Derleme sonucu; hata varsa error doludur ve .obj yazılmamıştır. Hata komut kodlama hatasıysa
+     * (tanımsız sembol, menzil dışı atlama, ...) instructions/symbolTable/passTwo yine doludur; listeleme
+     * HATA satırlarıyla üretilebilir.
+     * upToDate ise kaynak manifeste göre değişmemiştir, derleme atlanmış ve mevcut .obj korunmuştur
+     * (instructions/symbolTable/passTwo null).
+     */
+    public record Result(File source, File objFile, List<Instruction> instructions,
+                         SymbolTable symbolTable, PassTwo passTwo, Exception error, boolean upToDate) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private final File source;
+    private final File objDir;
+    private final MacroLibraryCache macroCache; // null olabilir
+    private final boolean peephole;
+    private final BuildProgress progress;
+    private final BuildManifest manifest; // null ise her zaman derlenir ve kayıt tutulmaz
+    private final boolean skipUpToDate;
+
+    public AssemblyJob(File source, File objDir, MacroLibraryCache macroCache, boolean peephole) {
+        this(source, objDir, macroCache, peephole, BuildProgress.NONE);
+    }
+
+    public AssemblyJob(File source, File objDir, MacroLibraryCache macroCache, boolean peephole, BuildProgress progress) {
+        this(source, objDir, macroCache, peephole, progress, null, false);
+    }
+
+    /**
+     * manifest verilirse başarılı derlemeler manifeste kaydedilir; skipUpToDate ise parmak izi
+     * manifestteki kayıtla aynı olan kaynak hiç derlenmez.
+     */
+    public AssemblyJob(File source, File objDir, MacroLibraryCache macroCache, boolean peephole,
+                       BuildProgress progress, BuildManifest manifest, boolean skipUpToDate) {
+        this.source = source;
+        this.objDir = objDir;
+        this.macroCache = macroCache;
+        this.peephole = peephole;
+        this.progress = progress;
+        this.manifest = manifest;
+        this.skipUpToDate = skipUpToDate;
+    }
+
+    /**
+     * Dosyayı derler ve obj/<ad>.obj dosyasını yazar. Hatalar fırlatılmaz, Result içinde döner.
+     * İş parçacığı kesilirse aşama aralarında durur ve error CancellationException olur.
+     */
+    @Override
+    public Result call() {
+        File objFile = objFileFor(source, objDir);
+        String name = source.getName();
+        // Parmak izi derlemeden önce alınır; derleme sırasında değişen kaynak bir sonraki derlemede yakalanır
+        BuildManifest.Fingerprint fingerprint = manifest != null ? BuildManifest.fingerprint(source, peephole) : null;
+        if (skipUpToDate && manifest != null && manifest.isUpToDate(source, fingerprint, objFile)) {
+            return new Result(source, objFile, null, null, null, null, true);
+        }
+        try {
+            progress.phaseStarted(name, BuildProgress.Phase.MACRO_PASS_ONE);
+            PassOne passOne = new PassOne(macroCache);
+            passOne.setPeepholeEnabled(peephole);
+            passOne.processFile(source.getPath());
+            List<Instruction> instructions = passOne.getInstructions();
+            SymbolTable symbolTable = passOne.getSymbolTable();
+
+            BuildProgress.checkCancelled();
+            progress.phaseStarted(name, BuildProgress.Phase.PASS_TWO);
+            PassTwo passTwo = new PassTwo(symbolTable);
+            passTwo.assemble(instructions);
+            String errors = assemblyErrors(instructions);
+            if (errors != null) {
+                // Hatalı komutlar görüntüden düşerdi; .obj yazılmaz ve manifest kaydı tutulmaz
+                forgetInManifest();
+                return new Result(source, objFile, instructions, symbolTable, passTwo,
+                        new IllegalStateException(errors), false);
+            }
+
+            BuildProgress.checkCancelled();
+            progress.phaseStarted(name, BuildProgress.Phase.OBJ_WRITE);
+            ObjectFileWriter.writeJson(objFile.getPath(), instructions, symbolTable, passTwo.getRelocationTable());
+            if (manifest != null) manifest.record(source, fingerprint, objFile);
+            return new Result(source, objFile, instructions, symbolTable, passTwo, null, false);
+        } catch (IOException | RuntimeException e) {
+            forgetInManifest();
+            return new Result(source, objFile, null, null, null, e, false);
+        }
+    }
+
+    /**
+     * Derlenemeyen kaynağın eski kaydı silinir; obj dizininde kalan önceki .obj artık bu kaynağa ait
+     * sayılmaz ve kaynak hatası giderilene kadar her derlemede yeniden derlenir (hata tekrar bildirilir).
+     */
+    private void forgetInManifest() {
+        if (manifest != null) manifest.forget(source);
+    }
+
+    /** PassTwo'nun komutlara yazdığı hatalar "dosya:satır: hata" satırları olarak; hata yoksa null. */
+    private String assemblyErrors(List<Instruction> instructions) {
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        for (Instruction inst : instructions) {
+            if (inst.getAssemblyError() == null) continue;
+            sb.append("\n  ").append(source.getName()).append(':').append(inst.getSourceLine())
+                    .append(": ").append(inst.getAssemblyError());
+            count++;
+        }
+        return count == 0 ? null : count + " komutta derleme hatası:" + sb;
+    }
+
+    /** obj/<kaynak adı uzantısız>.obj */
+    public static File objFileFor(File source, File objDir) {
+        String baseName = source.getName().replaceFirst("[.][^.]+$", "");
+        return new File(objDir, baseName + ".obj");
+    }
+}
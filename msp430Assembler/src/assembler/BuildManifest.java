@@ -0,0 +1,159 @@
+package assembler;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Artımlı derleme manifesti (obj/build-manifest.json).
+ * Her .asm için içerik özeti, özyineli olarak yüklediği .mlib kütüphanelerinin özetleri, assembler
+ * sürümü, peephole seçeneği ve üretilen .obj dosyasının özeti tutulur. Parmak izi değişmemiş ve
+ * .obj dosyası yerinde duran kaynaklar yeniden derlenmez.
+ */
+public class BuildManifest {
+
+    /** Kodlama veya .obj biçimi değiştiğinde artırılmalı; eski manifest kayıtları geçersiz olur. */
+    public static final String ASSEMBLER_VERSION = "1.1";
+    public static final String FILE_NAME = "build-manifest.json";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean dirty = false;
+
+    /** Bir kaynağın derleme girdilerinin özeti. libraries: kanonik yol -> SHA-256 (ilk yüklenme sırası). */
+    public record Fingerprint(String sourceHash, Map<String, String> libraries, String assemblerVersion, boolean peephole) {
+    }
+
+    private record Entry(Fingerprint fingerprint, String objPath, String objHash) {
+    }
+
+    /**
+     * Kaynağın parmak izini hesaplar. Kaynak veya kütüphanelerinden biri okunamazsa null döner;
+     * bu durumda dosya her zaman derlenir ve hata derleme sırasında raporlanır.
+     */
+    public static Fingerprint fingerprint(File source, boolean peephole) {
+        try {
+            String sourceHash = MacroLibraryCache.hash(Files.readAllBytes(source.toPath()));
+            Map<String, String> libraries = new LinkedHashMap<>();
+            for (File lib : MacroProcessor.libraryDependencies(source)) {
+                libraries.put(lib.getCanonicalPath(), MacroLibraryCache.hash(Files.readAllBytes(lib.toPath())));
+            }
+            return new Fingerprint(sourceHash, libraries, ASSEMBLER_VERSION, peephole);
+        } catch (IOException | UncheckedIOException e) {
+            return null;
+        }
+    }
+
+    /** Kaynak son derlemeden beri değişmemişse ve .obj dosyası aynen duruyorsa true döner. */
+    public boolean isUpToDate(File source, Fingerprint fingerprint, File objFile) {
+        if (fingerprint == null || !objFile.isFile()) return false;
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key(source));
+        }
+        if (entry == null || !entry.fingerprint().equals(fingerprint)) return false;
+        try {
+            return entry.objPath().equals(objFile.getCanonicalPath())
+                    && entry.objHash().equals(MacroLibraryCache.hash(Files.readAllBytes(objFile.toPath())));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Hatasız bir derlemeden sonra kaynağın parmak izini ve yazılan .obj dosyasını kaydeder. */
+    public void record(File source, Fingerprint fingerprint, File objFile) {
+        if (fingerprint == null) return;
+        try {
+            Entry entry = new Entry(fingerprint, objFile.getCanonicalPath(),
+                    MacroLibraryCache.hash(Files.readAllBytes(objFile.toPath())));
+            synchronized (this) {
+                entries.put(key(source), entry);
+                dirty = true;
+            }
+        } catch (IOException e) {
+            System.err.println("Uyarı: " + objFile.getPath() + " manifeste kaydedilemedi: " + e.getMessage());
+        }
+    }
+
+    /** Kaynağın kaydını siler; bir sonraki derlemede parmak izinden bağımsız olarak derlenir. */
+    public synchronized void forget(File source) {
+        if (entries.remove(key(source)) != null) dirty = true;
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    private static String key(File source) {
+        try {
+            return source.getCanonicalPath();
+        } catch (IOException e) {
+            return source.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Manifesti diskten okur. Dosya yoksa veya okunamıyorsa boş bir manifest döner (her şey derlenir).
+     */
+    public static BuildManifest load(File manifestFile) {
+        BuildManifest manifest = new BuildManifest();
+        if (!manifestFile.isFile()) return manifest;
+
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(manifestFile.toPath()), StandardCharsets.UTF_8));
+            if (!root.has("version") || !root.getString("version").equals(String.valueOf(FORMAT_VERSION))) {
+                return manifest;
+            }
+            JSONArray sourceArr = root.getJSONArray("sources");
+            for (int i = 0; i < sourceArr.length(); i++) {
+                JSONObject src = sourceArr.getJSONObject(i);
+                Map<String, String> libraries = new LinkedHashMap<>();
+                JSONArray libArr = src.getJSONArray("libraries");
+                for (int j = 0; j < libArr.length(); j++) {
+                    JSONObject lib = libArr.getJSONObject(j);
+                    libraries.put(lib.getString("path"), lib.getString("hash"));
+                }
+                Fingerprint fingerprint = new Fingerprint(src.getString("hash"), libraries,
+                        src.getString("assembler"), src.getBoolean("peephole"));
+                manifest.entries.put(src.getString("path"),
+                        new Entry(fingerprint, src.getString("obj"), src.getString("objHash")));
+            }
+        } catch (Exception e) {
+            System.err.println("Uyarı: Derleme manifesti okunamadı, tüm dosyalar derlenecek: " + e.getMessage());
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    /** Manifesti JSON olarak diske yazar. */
+    public synchronized void save(File manifestFile) throws IOException {
+        File parent = manifestFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+
+        JSONArray sourceArr = new JSONArray();
+        for (Map.Entry<String, Entry> src : entries.entrySet()) {
+            Entry entry = src.getValue();
+            Fingerprint fp = entry.fingerprint();
+            JSONArray libArr = new JSONArray();
+            for (Map.Entry<String, String> lib : fp.libraries().entrySet()) {
+                libArr.put(new JSONObject().put("path", lib.getKey()).put("hash", lib.getValue()));
+            }
+            sourceArr.put(new JSONObject()
+                    .put("path", src.getKey())
+                    .put("hash", fp.sourceHash())
+                    .put("assembler", fp.assemblerVersion())
+                    .put("peephole", fp.peephole())
+                    .put("obj", entry.objPath())
+                    .put("objHash", entry.objHash())
+                    .put("libraries", libArr));
+        }
+        JSONObject root = new JSONObject().put("version", String.valueOf(FORMAT_VERSION)).put("sources", sourceArr);
+        Files.writeString(manifestFile.toPath(), root.toString(2) + "\n", StandardCharsets.UTF_8);
+        dirty = false;
+    }
+}
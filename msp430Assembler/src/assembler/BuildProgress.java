@@ -0,0 +1,42 @@
+package assembler;
+
+/**
+ * Derleme/linkleme adımlarının ilerlemesini bildiren dinleyici. Paralel derlemede
+ * birden çok iş parçacığından çağrılabilir; uygulamalar thread-safe olmalıdır.
+ */
+@FunctionalInterface
+public interface BuildProgress {
+
+    /** Derleme hattının aşamaları */
+    enum Phase {
+        // Macro genişletme satır satır akış olarak Pass 1 içinde yapılır; bu yüzden tek aşamadır
+        MACRO_PASS_ONE("Macro + Pass 1"),
+        PASS_TWO("Pass 2"),
+        OBJ_WRITE(".obj yazma"),
+        LINK("Linkleme"),
+        TI_TXT_WRITE("TI-TXT yazma");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /** Hiçbir şey yapmayan dinleyici */
+    BuildProgress NONE = (item, phase) -> { };
+
+    /** 'item' (dosya adı) için 'phase' aşaması başladı. */
+    void phaseStarted(String item, Phase phase);
+
+    /** İş parçacığı kesildiyse (iptal) CancellationException fırlatır; aşamalar arasında çağrılır. */
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new java.util.concurrent.CancellationException("Derleme iptal edildi.");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package assembler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Birden çok .asm dosyasını sabit boyutlu bir iş parçacığı havuzunda paralel derler.
+ * Her dosya kendi AssemblyJob bağlamında derlenir ve .obj dosyasını bağımsız yazar.
+ * Sonuçlar (hatalar dahil) her zaman giriş sırasına göre döner; böylece log çıktısı
+ * iş parçacıklarının bitiş sırasından bağımsız ve deterministiktir.
+ */
+public class BuildScheduler {
+
+    private BuildScheduler() {
+    }
+
+    /** İşlemci sayısı kadar iş parçacığıyla derler. */
+    public static List<AssemblyJob.Result> build(List<File> sources, File objDir,
+                                                 MacroLibraryCache macroCache, boolean peephole) {
+        return build(sources, objDir, macroCache, peephole, Runtime.getRuntime().availableProcessors(), BuildProgress.NONE);
+    }
+
+    /** Manifest olmadan, her dosyayı derleyerek. */
+    public static List<AssemblyJob.Result> build(List<File> sources, File objDir, MacroLibraryCache macroCache,
+                                                 boolean peephole, int threads, BuildProgress progress) {
+        return build(sources, objDir, macroCache, peephole, threads, progress, null);
+    }
+
+    /**
+     * Dosyaları en fazla 'threads' iş parçacığıyla derler ve giriş sırasındaki sonuç listesini döner.
+     * manifest verilirse sadece parmak izi değişmiş (kirli) kaynaklar derlenir, diğerleri upToDate
+     * sonucuyla döner; manifest kayıtları güncellenir ama diske yazmak çağırana kalır.
+     * Aynı .obj dosyasına yazan (aynı isimli) kaynaklar tek bir görevde sırayla derlenir;
+     * önceki davranıştaki gibi sonuncusu kazanır. Çağıran iş parçacığı kesilirse (iptal) tüm işler
+     * kesilir ve CancellationException fırlatılır.
+     */
+    public static List<AssemblyJob.Result> build(List<File> sources, File objDir, MacroLibraryCache macroCache,
+                                                 boolean peephole, int threads, BuildProgress progress,
+                                                 BuildManifest manifest) {
+        if (!objDir.exists()) objDir.mkdirs(); // İşler başlamadan bir kez oluşturulur
+
+        // .obj yoluna göre grupla (grup içi sıra korunur)
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < sources.size(); i++) {
+            String objPath = AssemblyJob.objFileFor(sources.get(i), objDir).getPath();
+            groups.computeIfAbsent(objPath, k -> new ArrayList<>()).add(i);
+        }
+
+        AssemblyJob.Result[] results = new AssemblyJob.Result[sources.size()];
+        int poolSize = Math.max(1, Math.min(threads, groups.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Integer> group : groups.values()) {
+                futures.add(pool.submit(() -> {
+                    for (int index : group) {
+                        // Aynı .obj'ye yazan kaynaklar birbirinin çıktısını ezdiği için hiç atlanmaz
+                        results[index] = new AssemblyJob(sources.get(index), objDir, macroCache, peephole, progress,
+                                manifest, manifest != null && group.size() == 1).call();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Derleme iptal edildi.");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Derleme görevi beklenmedik şekilde sonlandı: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<AssemblyJob.Result> ordered = new ArrayList<>(results.length);
+        for (AssemblyJob.Result result : results) {
+            ordered.add(result);
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,259 @@
+package assembler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bir kez ayrıştırılmış, değiştirilemez ifade (postfix biçiminde).
+ * Sayılar derleme sırasında çözülür; semboller her değerlendirmede verilen SymbolTable'dan okunur.
+ * Desteklenen sözdizimi ExpressionEvaluator ile aynıdır: + - * / %, parantez, 'A', 0x.., decimal ve semboller.
+ */
+public final class CompiledExpression {
+
+    private static final byte PUSH_CONST = 0;
+    private static final byte PUSH_SYMBOL = 1;
+    private static final byte ADD = 2;
+    private static final byte SUB = 3;
+    private static final byte MUL = 4;
+    private static final byte DIV = 5;
+    private static final byte MOD = 6;
+
+    private final String source;
+    private final byte[] code;       // Postfix komutları
+    private final int[] args;        // PUSH_CONST için değer, PUSH_SYMBOL için symbols indeksi
+    private final String[] symbols;  // İfadede geçen semboller
+    private final int maxStack;
+
+    /** Değerlendirme sonucu; çözülemeyen sembol exception yerine sonuç olarak bildirilir. */
+    public record Result(int value, String unresolvedSymbol) {
+        public boolean isResolved() {
+            return unresolvedSymbol == null;
+        }
+    }
+
+    private CompiledExpression(String source, byte[] code, int[] args, String[] symbols, int maxStack) {
+        this.source = source;
+        this.code = code;
+        this.args = args;
+        this.symbols = symbols;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * İfadeyi ayrıştırır. Sözdizimi hatalarında RuntimeException fırlatır.
+     */
+    public static CompiledExpression compile(String expr) {
+        return new Compiler(expr).compile();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /** İfadede geçen sembol isimleri (geçiş sırasıyla). */
+    public List<String> getSymbols() {
+        return List.of(symbols);
+    }
+
+    /** İfade tek bir sembolden mi oluşuyor? (örn. "etiket") */
+    public boolean isSingleSymbol() {
+        return code.length == 1 && code[0] == PUSH_SYMBOL;
+    }
+
+    /** İfade hiç sembol içermiyorsa sabit değerini hesaplamak için SymbolTable gerekmez. */
+    public boolean isConstant() {
+        return symbols.length == 0;
+    }
+
+    public Result evaluate(SymbolTable symbolTable) {
+        int[] stack = new int[maxStack];
+        int sp = 0;
+        for (int i = 0; i < code.length; i++) {
+            switch (code[i]) {
+                case PUSH_CONST:
+                    stack[sp++] = args[i];
+                    break;
+                case PUSH_SYMBOL:
+                    String symbol = symbols[args[i]];
+                    if (symbolTable == null || !symbolTable.contains(symbol)) {
+                        return new Result(0, symbol);
+                    }
+                    stack[sp++] = symbolTable.getAddress(symbol);
+                    break;
+                default:
+                    int right = stack[--sp];
+                    int left = stack[--sp];
+                    stack[sp++] = apply(code[i], left, right);
+            }
+        }
+        return new Result(stack[0], null);
+    }
+
+    private static int apply(byte op, int left, int right) {
+        switch (op) {
+            case ADD: return left + right;
+            case SUB: return left - right;
+            case MUL: return left * right;
+            case DIV:
+                if (right == 0) throw new RuntimeException("Sıfıra bölme hatası");
+                return left / right;
+            default:  return left % right;
+        }
+    }
+
+    /** Özyinelemeli iniş ayrıştırıcısı; çıktıyı postfix komut dizisine yazar. */
+    private static final class Compiler {
+        private final String source;
+        private final String input;
+        private int pos;
+
+        private final List<Byte> code = new ArrayList<>();
+        private final List<Integer> args = new ArrayList<>();
+        private final List<String> symbols = new ArrayList<>();
+        private int depth, maxDepth;
+
+        Compiler(String source) {
+            this.source = source;
+            this.input = stripWhitespace(source);
+        }
+
+        CompiledExpression compile() {
+            parseExpression();
+            byte[] c = new byte[code.size()];
+            int[] a = new int[args.size()];
+            for (int i = 0; i < c.length; i++) {
+                c[i] = code.get(i);
+                a[i] = args.get(i);
+            }
+            return new CompiledExpression(source, c, a, symbols.toArray(new String[0]), maxDepth);
+        }
+
+        private void emit(byte op, int arg) {
+            code.add(op);
+            args.add(arg);
+            if (op == PUSH_CONST || op == PUSH_SYMBOL) {
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else {
+                depth--;
+            }
+        }
+
+        private void parseExpression() {
+            parseTerm();
+
+            while (pos < input.length()) {
+                char op = input.charAt(pos);
+
+                if (op == '+') {
+                    pos++;
+                    parseTerm();
+                    emit(ADD, 0);
+                } else if (op == '-') {
+                    pos++;
+                    parseTerm();
+                    emit(SUB, 0);
+                } else {
+                    break;
+                }
+            }
+        }
+
+        private void parseTerm() {
+            parseFactor();
+
+            while (pos < input.length()) {
+                char op = input.charAt(pos);
+
+                if (op == '*') {
+                    pos++;
+                    parseFactor();
+                    emit(MUL, 0);
+                } else if (op == '/') {
+                    pos++;
+                    parseFactor();
+                    emit(DIV, 0);
+                } else if (op == '%') {
+                    pos++;
+                    parseFactor();
+                    emit(MOD, 0);
+                } else {
+                    break;
+                }
+            }
+        }
+
+        private void parseFactor() {
+            if (pos >= input.length()) throw new RuntimeException("Eksik ifade");
+
+            // Char literal: 'A'
+            if (input.charAt(pos) == '\'' && pos + 2 < input.length() && input.charAt(pos + 2) == '\'') {
+                emit(PUSH_CONST, input.charAt(pos + 1));
+                pos += 3;
+                return;
+            }
+
+            // Parantez
+            if (input.charAt(pos) == '(') {
+                pos++;
+                parseExpression();
+                if (pos >= input.length() || input.charAt(pos) != ')') {
+                    throw new RuntimeException("Parantez kapanmadı");
+                }
+                pos++;
+                return;
+            }
+
+            // Token alma (sembol, sayı)
+            int start = pos;
+            while (pos < input.length() &&
+                    (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '_')) {
+                pos++;
+            }
+
+            if (start == pos) {
+                throw new RuntimeException("Geçersiz ifade veya sembol: ");
+            }
+
+            String token = input.substring(start, pos);
+
+            if (isHex(token)) {
+                emit(PUSH_CONST, Integer.parseInt(token.substring(2), 16));
+            } else if (isDecimal(token)) {
+                emit(PUSH_CONST, Integer.parseInt(token));
+            } else {
+                int index = symbols.indexOf(token);
+                if (index < 0) {
+                    index = symbols.size();
+                    symbols.add(token);
+                }
+                emit(PUSH_SYMBOL, index);
+            }
+        }
+
+        private static boolean isHex(String token) {
+            if (token.length() < 3 || token.charAt(0) != '0' || (token.charAt(1) != 'x' && token.charAt(1) != 'X')) {
+                return false;
+            }
+            for (int i = 2; i < token.length(); i++) {
+                if (Character.digit(token.charAt(i), 16) < 0 || token.charAt(i) > 'f') return false;
+            }
+            return true;
+        }
+
+        private static boolean isDecimal(String token) {
+            for (int i = 0; i < token.length(); i++) {
+                char c = token.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return true;
+        }
+
+        private static String stripWhitespace(String s) {
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                if (!Character.isWhitespace(s.charAt(i))) sb.append(s.charAt(i));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -5,6 +5,10 @@ import java.util.*;
 
 public class ExecutableWriter {
 
+    // Bir veri bloğunu (chunk) sonlandırmak için gereken ardışık sıfır sayısı.
+    // Örneğin, 16 tane 0x00 byte'ı peş peşe gelirse, yeni bir bloğa başlanır.
+    private static final int MAX_ZERO_GAP = 16; // Chunks are split by this many consecutive zeros.
+
     /**
      * TI-TXT formatında bellek görüntüsünü yazar.
      * Bu format, bellekteki veri bloklarını adresleriyle birlikte listeler.
@@ -13,51 +17,23 @@ public class ExecutableWriter {
      * anlamlı "chunk"ları (parçaları) bulur ve onları yazar.
      */
     public static void writeTiTxt(Map<String, MemorySegment> segments, String outputFile) throws IOException {
-        // Bir veri bloğunu (chunk) sonlandırmak için gereken ardışık sıfır sayısı.
-        // Örneğin, 16 tane 0x00 byte'ı peş peşe gelirse, yeni bir bloğa başlanır.
-        final int MAX_ZERO_GAP = 16; // Chunks are split by this many consecutive zeros.
-
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
             for (MemorySegment segment : segments.values()) {
                 // BSS segmentini atla, çünkü içinde programlanacak veri yok.
                 if (segment.getName().equals(".bss")) continue;
 
-                byte[] data = segment.getContent();
+                MemoryImage image = segment.getImage();
                 int origin = segment.getOrigin();
-                int length = data.length;
-
-                int i = 0;
-                while (i < length) {
-                    // 1. Veri içeren bir sonraki bloğun başlangıcını bul (baştaki sıfırları atla)
-                    while (i < length && data[i] == 0) {
-                        i++;
-                    }
-                    if (i >= length) break; // Segmentin sonu
+                for (int[] chunk : chunks(image, origin, segment.getLength())) {
+                    int chunkStart = chunk[0];
+                    int chunkEnd = chunk[1];
 
-                    int chunkStart = i;
-
-                    // 2. Bu bloğun sonunu bul. Uzun bir sıfır dizisi bloğu bitirir.
-                    int chunkEnd = chunkStart;
-                    int consecutiveZeros = 0;
-                    for (int j = chunkStart; j < length; j++) {
-                        if (data[j] == 0) {
-                            consecutiveZeros++;
-                        } else {
-                            chunkEnd = j; // Gördüğümüz son veri byte'ı burası
-                            consecutiveZeros = 0;
-                        }
-                        // Eğer büyük bir boşluğa ulaştıysak, blok bitmiştir.
-                        if (consecutiveZeros >= MAX_ZERO_GAP) {
-                            break;
-                        }
-                    }
-
-                    // 3. Tespit edilen bloğu yazdır
+                    // Tespit edilen bloğu yazdır
                     writer.write(String.format("@%04X\n", origin + chunkStart));
 
                     int lineByteCount = 0;
                     for (int k = chunkStart; k <= chunkEnd; k++) {
-                        writer.write(String.format("%02X", data[k]));
+                        writer.write(String.format("%02X", image.readByte(origin + k)));
                         lineByteCount++;
 
                         boolean isLastByteInChunk = (k == chunkEnd);
@@ -72,15 +48,133 @@ public class ExecutableWriter {
                             writer.write(" ");
                         }
                     }
-
-                    // 4. Ana işaretçiyi işlenen bloğun sonuna taşı ve bir sonraki bloğu ara.
-                    i = chunkEnd + 1;
                 }
             }
 
             writer.write("q\n"); // TI-TXT formatının sonlandırma karakteri
         }
+    }
 
-        System.out.println("[TI-TXT] Uyumlu çıktı başarıyla yazıldı.");
+    /**
+     * Intel HEX formatında yazar. TI-TXT ile aynı veri blokları, satır başına en fazla 16 byte'lık
+     * veri kayıtları (00) olarak yazılır; 64 KB üzerindeki adresler için uzatılmış doğrusal adres
+     * kaydı (04) eklenir.
+     */
+    public static void writeIntelHex(Map<String, MemorySegment> segments, String outputFile) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+            int upperAddress = 0;
+            for (MemorySegment segment : segments.values()) {
+                if (segment.getName().equals(".bss")) continue;
+
+                MemoryImage image = segment.getImage();
+                int origin = segment.getOrigin();
+                byte[] record = new byte[16];
+                for (int[] chunk : chunks(image, origin, segment.getLength())) {
+                    int k = chunk[0];
+                    while (k <= chunk[1]) {
+                        int address = origin + k;
+                        if ((address >>> 16) != upperAddress) {
+                            upperAddress = address >>> 16;
+                            writeHexRecord(writer, 0, 0x04, new byte[]{(byte) (upperAddress >> 8), (byte) upperAddress}, 0, 2);
+                        }
+                        // Bir kayıt 64 KB sınırını geçmemeli
+                        int count = Math.min(Math.min(16, chunk[1] - k + 1), 0x10000 - (address & 0xFFFF));
+                        image.read(address, record, 0, count);
+                        writeHexRecord(writer, address & 0xFFFF, 0x00, record, 0, count);
+                        k += count;
+                    }
+                }
+            }
+            writer.write(":00000001FF\n"); // Dosya sonu kaydı
+        }
+    }
+
+    private static void writeHexRecord(Writer writer, int address, int type, byte[] data, int offset, int count) throws IOException {
+        int checksum = count + (address >> 8) + (address & 0xFF) + type;
+        StringBuilder sb = new StringBuilder(String.format(":%02X%04X%02X", count, address, type));
+        for (int i = 0; i < count; i++) {
+            int b = data[offset + i] & 0xFF;
+            sb.append(String.format("%02X", b));
+            checksum += b;
+        }
+        sb.append(String.format("%02X\n", (-checksum) & 0xFF));
+        writer.write(sb.toString());
+    }
+
+    /**
+     * Düz ikili görüntü yazar: en düşük segment başlangıcından en yüksek segment sonuna kadar
+     * tüm bellek; segmentler arasındaki boşluklar silinmiş flash gibi 0xFF ile doldurulur.
+     * Segmentler bellek görüntüsünden sayfa sayfa okunur; tam boyutlu bir ara dizi oluşturulmaz.
+     */
+    public static void writeBinary(Map<String, MemorySegment> segments, String outputFile) throws IOException {
+        List<MemorySegment> loaded = new ArrayList<>();
+        for (MemorySegment segment : segments.values()) {
+            if (segment.getName().equals(".bss") || segment.getLength() == 0) continue;
+            loaded.add(segment);
+        }
+        loaded.sort(Comparator.comparingInt(MemorySegment::getOrigin));
+
+        byte[] buffer = new byte[MemoryImage.PAGE_SIZE];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            int position = loaded.isEmpty() ? 0 : loaded.get(0).getOrigin();
+            for (MemorySegment segment : loaded) {
+                int end = segment.getOrigin() + segment.getLength();
+                if (segment.getOrigin() > position) {
+                    // Segmentler arası boşluk
+                    Arrays.fill(buffer, MemoryImage.ERASED);
+                    for (int n = segment.getOrigin() - position; n > 0; n -= buffer.length) {
+                        out.write(buffer, 0, Math.min(n, buffer.length));
+                    }
+                    position = segment.getOrigin();
+                }
+                // Çakışan segmentlerde görüntüde son yazılan içerik geçerlidir
+                while (position < end) {
+                    int n = Math.min(end - position, buffer.length);
+                    segment.getImage().read(position, buffer, 0, n);
+                    out.write(buffer, 0, n);
+                    position += n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Görüntünün [origin, origin + length) aralığındaki veri içeren blokları, origin'e göre [ilk, son]
+     * (dahil) offset çiftleri olarak döner.
+     * Baştaki sıfırlar atlanır; MAX_ZERO_GAP kadar ardışık sıfır bir bloğu bitirir.
+     */
+    private static List<int[]> chunks(MemoryImage image, int origin, int length) {
+        List<int[]> chunks = new ArrayList<>();
+        int i = 0;
+        while (i < length) {
+            // 1. Veri içeren bir sonraki bloğun başlangıcını bul (baştaki sıfırları atla)
+            while (i < length && image.readByte(origin + i) == 0) {
+                i++;
+            }
+            if (i >= length) break; // Segmentin sonu
+
+            int chunkStart = i;
+
+            // 2. Bu bloğun sonunu bul. Uzun bir sıfır dizisi bloğu bitirir.
+            int chunkEnd = chunkStart;
+            int consecutiveZeros = 0;
+            for (int j = chunkStart; j < length; j++) {
+                if (image.readByte(origin + j) == 0) {
+                    consecutiveZeros++;
+                } else {
+                    chunkEnd = j; // Gördüğümüz son veri byte'ı burası
+                    consecutiveZeros = 0;
+                }
+                // Eğer büyük bir boşluğa ulaştıysak, blok bitmiştir.
+                if (consecutiveZeros >= MAX_ZERO_GAP) {
+                    break;
+                }
+            }
+            chunks.add(new int[]{chunkStart, chunkEnd});
+
+            // 3. Ana işaretçiyi işlenen bloğun sonuna taşı ve bir sonraki bloğu ara.
+            i = chunkEnd + 1;
+        }
+        return chunks;
     }
-}
\ No newline at end of file
+}
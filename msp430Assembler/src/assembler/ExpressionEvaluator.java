@@ -1,112 +1,48 @@
 package assembler;
 
-import java.util.*;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sembolik ifadeleri değerlendirir.
+ * Her ifade metni bir kez CompiledExpression'a derlenir ve kaynak metne göre önbellekte tutulur;
+ * aynı operand tekrar değerlendirildiğinde yeniden ayrıştırılmaz.
+ */
 public class ExpressionEvaluator {
 
+    /** Önbelleğin sınırsız büyümesini engellemek için üst sınır */
+    private static final int MAX_CACHED_EXPRESSIONS = 16384;
+    private static final Map<String, CompiledExpression> cache = new ConcurrentHashMap<>();
+
     private final SymbolTable symbolTable;
-    private int pos;
-    private String input;
 
     public ExpressionEvaluator(SymbolTable symbolTable) {
         this.symbolTable = symbolTable;
     }
 
-    public int evaluate(String expr) {
-        this.input = expr.replaceAll("\\s+", ""); // boşlukları sil
-        this.pos = 0;
-        return parseExpression();
-    }
-
-    private int parseExpression() {
-        int value = parseTerm();
-
-        while (pos < input.length()) {
-            char op = input.charAt(pos);
-
-            if (op == '+') {
-                pos++;
-                value += parseTerm();
-            } else if (op == '-') {
-                pos++;
-                value -= parseTerm();
-            } else {
-                break;
+    /** İfadeyi (önbellekten veya yeniden) derlenmiş haliyle döner. Sözdizimi hatalarında RuntimeException fırlatır. */
+    public static CompiledExpression compile(String expr) {
+        CompiledExpression compiled = cache.get(expr);
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(expr);
+            if (cache.size() >= MAX_CACHED_EXPRESSIONS) {
+                cache.clear();
             }
+            cache.put(expr, compiled);
         }
-
-        return value;
+        return compiled;
     }
 
-    private int parseTerm() {
-        int value = parseFactor();
-
-        while (pos < input.length()) {
-            char op = input.charAt(pos);
-
-            if (op == '*') {
-                pos++;
-                value *= parseFactor();
-            } else if (op == '/') {
-                pos++;
-                int divisor = parseFactor();
-                if (divisor == 0) throw new RuntimeException("Sıfıra bölme hatası");
-                value /= divisor;
-            } else if (op == '%') {
-                pos++;
-                value %= parseFactor();
-            } else {
-                break;
-            }
-        }
-
-        return value;
+    /** İfadeyi değerlendirir; çözülemeyen sembolü exception yerine sonuç olarak bildirir. */
+    public CompiledExpression.Result tryEvaluate(String expr) {
+        return compile(expr).evaluate(symbolTable);
     }
 
-    private int parseFactor() {
-        if (pos >= input.length()) throw new RuntimeException("Eksik ifade");
-
-        // Char literal: 'A'
-        if (input.charAt(pos) == '\'' && pos + 2 < input.length() && input.charAt(pos + 2) == '\'') {
-            int ascii = input.charAt(pos + 1);
-            pos += 3;
-            return ascii;
-        }
-
-        // Parantez
-        if (input.charAt(pos) == '(') {
-            pos++;
-            int val = parseExpression();
-            if (pos >= input.length() || input.charAt(pos) != ')') {
-                throw new RuntimeException("Parantez kapanmadı");
-            }
-            pos++;
-            return val;
-        }
-
-        // Token alma (sembol, sayı)
-        int start = pos;
-        while (pos < input.length() &&
-                (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '_')) {
-            pos++;
-        }
-
-        String token = input.substring(start, pos);
-
-        if (token.matches("0[xX][0-9a-fA-F]+")) {
-            return Integer.parseInt(token.substring(2), 16);
-        }
-
-        if (token.matches("\\d+")) {
-            return Integer.parseInt(token);
-        }
-
-        if (symbolTable.contains(token)) {
-            return symbolTable.getAddress(token);
+    public int evaluate(String expr) {
+        CompiledExpression.Result result = tryEvaluate(expr);
+        if (!result.isResolved()) {
+            throw new RuntimeException("Geçersiz ifade veya sembol: " + result.unresolvedSymbol());
         }
-
-        throw new RuntimeException("Geçersiz ifade veya sembol: " + token);
+        return result.value();
     }
-
-
 }
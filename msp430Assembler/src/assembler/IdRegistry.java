@@ -0,0 +1,60 @@
+package assembler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * İsimlere (section, kaynak dosya) bir kez yoğun (0, 1, 2, ...) int kimlik atar.
+ * Sık yapılan karşılaştırmalar String.equals yerine kimlikler üzerinden int karşılaştırması olur;
+ * isim sadece çıktı üretirken kimlikten geri alınır.
+ *
+ * SECTIONS ve FILES tüm derleme/link boyunca paylaşılır; böylece PassOne'ın verdiği kimlikler
+ * .obj okuma ve linkleme sırasında da aynıdır. Paralel derleme işleri aynı kayıtları kullandığından
+ * metotlar senkronizedir. null isim kayıt edilmez, kimliği NONE'dır.
+ */
+public class IdRegistry {
+
+    /** null isim (section'ı veya dosyası olmayan girdi) */
+    public static final int NONE = -1;
+
+    /** Section kimlikleri; .text, .data ve .bss her zaman 0, 1 ve 2'dir. */
+    public static final IdRegistry SECTIONS = new IdRegistry(".text", ".data", ".bss");
+    /** Kaynak/.obj dosya adı kimlikleri */
+    public static final IdRegistry FILES = new IdRegistry();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public IdRegistry(String... predefined) {
+        for (String name : predefined) idOf(name);
+    }
+
+    /** İsmin kimliği; isim ilk kez görülüyorsa yeni kimlik atanır. */
+    public synchronized int idOf(String name) {
+        if (name == null) return NONE;
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    /** İsmin kimliği, kayıtlı değilse -1. */
+    public synchronized int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    /** Kimliğin ismi; NONE için null. */
+    public synchronized String name(int id) {
+        return id == NONE ? null : names.get(id);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+}
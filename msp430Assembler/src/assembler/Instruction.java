@@ -1,7 +1,9 @@
 package assembler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Tek satırı ifade eder.
@@ -17,11 +19,24 @@ public class Instruction {
     private int format;           // Komut formatı
     private int bw;               // Byte/Word biti
     private String rawLine;       // Assembly satırının orijinal hali
-    private String section;       // Bu komutun ait olduğu segment (.text, .data, ...)
-    private String sourceFile;    // Bu komutun geldiği kaynak .obj dosyası
+    private int sectionId = IdRegistry.NONE;    // Ait olduğu segmentin (.text, .data, ...) IdRegistry.SECTIONS kimliği
+    private int sourceFileId = IdRegistry.NONE; // Geldiği kaynak dosyanın IdRegistry.FILES kimliği
 
-    private List<Integer> extraWords = new ArrayList<>();
-    private List<Integer> extraBytes = new ArrayList<>();
+    private PassTwo.TransformedInstruction transformed; // Sözde komut dönüşümü sonrası hali (PassOne doldurur)
+    private List<Operand> operands = List.of();         // Ayrıştırılmış operandlar (PassOne doldurur)
+    private String operandError;                        // Operand ayrıştırma hatası (PassTwo listede gösterir)
+    private String assemblyError;                       // PassTwo kodlama hatası (listelemede HATA satırı)
+    private int statementIndex = -1;                    // Macro genişletilmiş kaynaktaki satır sırası (PassOne doldurur)
+    private int sourceLine = -1;                        // Komutu üreten kaynak satırı (1 tabanlı; macro gövdesinde çağrı satırı)
+    private List<String> listingNotes = List.of();      // Listelemede komuttan önce yazılacak notlar (örn. peephole)
+
+    // Kodlanan ek veri kutulu Integer listeleri yerine ilkel byte dizilerinde tutulur.
+    // Ek kelimeler bellekteki gibi little-endian saklanır; linker bunları segmente doğrudan kopyalar.
+    private static final byte[] NO_DATA = new byte[0];
+    private byte[] extraWords = NO_DATA; // 2 byte/kelime, little-endian
+    private int extraWordCount = 0;
+    private byte[] extraBytes = NO_DATA;
+    private int extraByteCount = 0;
 
     /**Yapıc*/
     public Instruction(String label, String mnemonic, String operandString, int address, int format) {
@@ -89,35 +104,168 @@ public class Instruction {
     }
 
     public String getSection() {
-        return section;
+        return IdRegistry.SECTIONS.name(sectionId);
     }
 
     public void setSection(String section) {
-        this.section = section;
+        this.sectionId = IdRegistry.SECTIONS.idOf(section);
+    }
+
+    public int getSectionId() {
+        return sectionId;
+    }
+
+    public void setSectionId(int sectionId) {
+        this.sectionId = sectionId;
     }
 
     public String getSourceFile() {
-        return sourceFile;
+        return IdRegistry.FILES.name(sourceFileId);
     }
 
     public void setSourceFile(String sourceFile) {
-        this.sourceFile = sourceFile;
+        this.sourceFileId = IdRegistry.FILES.idOf(sourceFile);
     }
 
-    public List<Integer> getExtraWords() {
-        return extraWords;
+    public int getSourceFileId() {
+        return sourceFileId;
+    }
+
+    public void setSourceFileId(int sourceFileId) {
+        this.sourceFileId = sourceFileId;
+    }
+
+    public PassTwo.TransformedInstruction getTransformed() {
+        return transformed;
+    }
+
+    public void setTransformed(PassTwo.TransformedInstruction transformed) {
+        this.transformed = transformed;
+    }
+
+    public List<Operand> getOperands() {
+        return operands;
+    }
+
+    public void setOperands(List<Operand> operands) {
+        this.operands = operands;
+    }
+
+    public String getOperandError() {
+        return operandError;
+    }
+
+    public void setOperandError(String operandError) {
+        this.operandError = operandError;
+    }
+
+    public String getAssemblyError() {
+        return assemblyError;
+    }
+
+    public void setAssemblyError(String assemblyError) {
+        this.assemblyError = assemblyError;
+    }
+
+    public int getStatementIndex() {
+        return statementIndex;
+    }
+
+    public void setStatementIndex(int statementIndex) {
+        this.statementIndex = statementIndex;
     }
 
-    public void setExtraWords(List<Integer> extraWords) {
-        this.extraWords = extraWords;
+    public int getSourceLine() {
+        return sourceLine;
+    }
+
+    public void setSourceLine(int sourceLine) {
+        this.sourceLine = sourceLine;
+    }
+
+    public List<String> getListingNotes() {
+        return listingNotes;
+    }
+
+    public void addListingNote(String note) {
+        if (listingNotes.isEmpty()) listingNotes = new ArrayList<>();
+        listingNotes.add(note);
+    }
+
+    public int getExtraWordCount() {
+        return extraWordCount;
+    }
+
+    /** index'inci ek kelime (0..0xFFFF) */
+    public int getExtraWord(int index) {
+        Objects.checkIndex(index, extraWordCount);
+        return (extraWords[2 * index] & 0xFF) | ((extraWords[2 * index + 1] & 0xFF) << 8);
+    }
+
+    /** index'inci ek kelimeyi değiştirir (linker yaması); sadece alt 16 bit saklanır. */
+    public void setExtraWord(int index, int value) {
+        Objects.checkIndex(index, extraWordCount);
+        extraWords[2 * index] = (byte) value;
+        extraWords[2 * index + 1] = (byte) (value >> 8);
+    }
+
+    public void addExtraWord(int value) {
+        if (2 * extraWordCount == extraWords.length) {
+            extraWords = Arrays.copyOf(extraWords, Math.max(4, 2 * extraWords.length));
+        }
+        extraWordCount++;
+        setExtraWord(extraWordCount - 1, value);
+    }
+
+    /** Eklenecek kelime sayısı biliniyorsa diziyi tam o boyuta ayırır. */
+    public void reserveExtraWords(int count) {
+        if (2 * (extraWordCount + count) > extraWords.length) {
+            extraWords = Arrays.copyOf(extraWords, 2 * (extraWordCount + count));
+        }
+    }
+
+    public int getExtraByteCount() {
+        return extraByteCount;
+    }
+
+    /** index'inci ek byte (0..0xFF) */
+    public int getExtraByte(int index) {
+        Objects.checkIndex(index, extraByteCount);
+        return extraBytes[index] & 0xFF;
+    }
+
+    public void addExtraByte(int value) {
+        if (extraByteCount == extraBytes.length) {
+            extraBytes = Arrays.copyOf(extraBytes, Math.max(4, 2 * extraBytes.length));
+        }
+        extraBytes[extraByteCount++] = (byte) value;
+    }
+
+    /** Eklenecek byte sayısı biliniyorsa diziyi tam o boyuta ayırır. */
+    public void reserveExtraBytes(int count) {
+        if (extraByteCount + count > extraBytes.length) {
+            extraBytes = Arrays.copyOf(extraBytes, extraByteCount + count);
+        }
+    }
+
+    /** Ek kelimelerin little-endian verisi; ilk 2 * getExtraWordCount() byte geçerlidir. Değiştirilmemeli. */
+    byte[] extraWordData() {
+        return extraWords;
     }
 
-    public List<Integer> getExtraBytes() {
+    /** Ek byte verisi; ilk getExtraByteCount() byte geçerlidir. Değiştirilmemeli. */
+    byte[] extraByteData() {
         return extraBytes;
     }
 
-    public void setExtraBytes(List<Integer> extraBytes) {
-        this.extraBytes = extraBytes;
+    /** PassTwo'nun ürettiği kodlamayı siler (artımlı Pass 2 yeniden kodlamadan önce çağırır). */
+    public void clearEncoding() {
+        machineCode = null;
+        assemblyError = null;
+        extraWords = NO_DATA;
+        extraWordCount = 0;
+        extraBytes = NO_DATA;
+        extraByteCount = 0;
     }
 
     /** Assembly satırının temiz bir temsilini verir.*/
@@ -0,0 +1,209 @@
+package assembler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Komutların sütun tabanlı (struct-of-arrays) deposu.
+ * Her satır bir Instruction nesnesi yerine bir int indeksidir: adres, makine kodu, format, section ve
+ * kaynak dosya kimlikleri (IdRegistry.SECTIONS/FILES) ayrı int dizilerinde; ek kelime/byte verisi paylaşılan tek bir byte dizisinde
+ * (kelimeler little-endian, ardından byte'lar), orijinal satırlar da paylaşılan bir metin havuzunda tutulur.
+ * Satır başına nesne başlığı ve liste oluşmadığı için milyon satırlık tablolar .obj okuma, linkleme ve
+ * .obj yazma sırasında GC'yi zorlamaz.
+ *
+ * Satırlar sadece sona eklenir; ek veri her zaman son eklenen satıra yazılır.
+ */
+public class InstructionStore {
+
+    /** Makine kodu olmayan satır (etiket, direktif) */
+    public static final int NO_CODE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size = 0;
+    private int[] address = new int[INITIAL_CAPACITY];
+    private int[] machineCode = new int[INITIAL_CAPACITY];
+    private int[] format = new int[INITIAL_CAPACITY];
+    private int[] sectionId = new int[INITIAL_CAPACITY];
+    private int[] fileId = new int[INITIAL_CAPACITY];
+    private int[] payloadStart = new int[INITIAL_CAPACITY]; // Satırın ek verisinin payload içindeki başlangıcı
+    private int[] wordCount = new int[INITIAL_CAPACITY];
+    private int[] rawLineStart = new int[INITIAL_CAPACITY]; // Satır metninin rawLines içindeki başlangıcı
+
+    private byte[] payload = new byte[4 * INITIAL_CAPACITY];
+    private int payloadSize = 0;
+    private final StringBuilder rawLines = new StringBuilder();
+
+    /** PassTwo çıktısını (Instruction listesi) depoya aktarır; .obj yazıcı bu depo üzerinden yazar. */
+    public static InstructionStore of(List<Instruction> instructions) {
+        InstructionStore store = new InstructionStore();
+        for (Instruction inst : instructions) {
+            Integer code = inst.getMachineCode();
+            store.add(inst.getAddress(), code != null ? code : NO_CODE, inst.getFormat(),
+                    inst.getSectionId(), inst.getSourceFileId(), inst.getRawLine());
+            store.appendPayload(inst.extraWordData(), 2 * inst.getExtraWordCount());
+            store.wordCount[store.size - 1] = inst.getExtraWordCount();
+            store.appendPayload(inst.extraByteData(), inst.getExtraByteCount());
+        }
+        return store;
+    }
+
+    /** Yeni bir satır ekler ve indeksini döner. machineCode yoksa NO_CODE verilmeli. */
+    public int add(int address, int machineCode, int format, int sectionId, int fileId, String rawLine) {
+        if (size == this.address.length) grow();
+        this.address[size] = address;
+        this.machineCode[size] = machineCode;
+        this.format[size] = format;
+        this.sectionId[size] = sectionId;
+        this.fileId[size] = fileId;
+        this.payloadStart[size] = payloadSize;
+        this.wordCount[size] = 0;
+        this.rawLineStart[size] = rawLines.length();
+        if (rawLine != null) rawLines.append(rawLine);
+        return size++;
+    }
+
+    /** Son satıra bir ek kelime ekler. Kelimeler byte'lardan önce eklenmelidir. */
+    public void addWord(int value) {
+        int row = size - 1;
+        if (payloadSize != payloadStart[row] + 2 * wordCount[row]) {
+            throw new IllegalStateException("Ek kelimeler ek byte'lardan önce eklenmeli (satır " + row + ")");
+        }
+        ensurePayload(2);
+        payload[payloadSize++] = (byte) value;
+        payload[payloadSize++] = (byte) (value >> 8);
+        wordCount[row]++;
+    }
+
+    /** Son satıra bir ek byte ekler. */
+    public void addByte(int value) {
+        ensurePayload(1);
+        payload[payloadSize++] = (byte) value;
+    }
+
+    private void appendPayload(byte[] data, int count) {
+        ensurePayload(count);
+        System.arraycopy(data, 0, payload, payloadSize, count);
+        payloadSize += count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Section kimliklerinin kaydı; tüm depolar, semboller ve relocation'lar aynı kaydı kullanır. */
+    public IdRegistry getSections() {
+        return IdRegistry.SECTIONS;
+    }
+
+    public IdRegistry getFiles() {
+        return IdRegistry.FILES;
+    }
+
+    public int address(int row) {
+        return address[check(row)];
+    }
+
+    public void setAddress(int row, int value) {
+        address[check(row)] = value;
+    }
+
+    /** Makine kodu veya NO_CODE */
+    public int machineCode(int row) {
+        return machineCode[check(row)];
+    }
+
+    public void setMachineCode(int row, int value) {
+        machineCode[check(row)] = value;
+    }
+
+    public int format(int row) {
+        return format[check(row)];
+    }
+
+    public int sectionId(int row) {
+        return sectionId[check(row)];
+    }
+
+    public String section(int row) {
+        return IdRegistry.SECTIONS.name(sectionId[check(row)]);
+    }
+
+    /** Kaynak dosya kimliği; bilinmiyorsa -1 */
+    public int fileId(int row) {
+        return fileId[check(row)];
+    }
+
+    public String file(int row) {
+        return IdRegistry.FILES.name(fileId[check(row)]);
+    }
+
+    /** Satırın orijinal assembly metni (istendiğinde havuzdan oluşturulur). */
+    public String rawLine(int row) {
+        int end = row + 1 < size ? rawLineStart[row + 1] : rawLines.length();
+        return rawLines.substring(rawLineStart[check(row)], end);
+    }
+
+    public int wordCount(int row) {
+        return wordCount[check(row)];
+    }
+
+    public int word(int row, int index) {
+        int offset = payloadStart[row] + 2 * Objects.checkIndex(index, wordCount(row));
+        return (payload[offset] & 0xFF) | ((payload[offset + 1] & 0xFF) << 8);
+    }
+
+    /** Ek kelimeyi değiştirir (linker yaması); sadece alt 16 bit saklanır. */
+    public void setWord(int row, int index, int value) {
+        int offset = payloadStart[row] + 2 * Objects.checkIndex(index, wordCount(row));
+        payload[offset] = (byte) value;
+        payload[offset + 1] = (byte) (value >> 8);
+    }
+
+    public int byteCount(int row) {
+        return payloadSize(row) - 2 * wordCount[row];
+    }
+
+    public int byteAt(int row, int index) {
+        return payload[payloadStart[row] + 2 * wordCount[row] + Objects.checkIndex(index, byteCount(row))] & 0xFF;
+    }
+
+    /** Satırın ek verisinin toplam boyutu (kelimeler + byte'lar) */
+    public int payloadSize(int row) {
+        int end = row + 1 < size ? payloadStart[row + 1] : payloadSize;
+        return end - payloadStart[check(row)];
+    }
+
+    /** Satırın ek verisinin payload() içindeki başlangıcı */
+    public int payloadOffset(int row) {
+        return payloadStart[check(row)];
+    }
+
+    /** Paylaşılan ek veri dizisi; sadece okunmalı (toplu kopyalama için). */
+    byte[] payload() {
+        return payload;
+    }
+
+    private int check(int row) {
+        return Objects.checkIndex(row, size);
+    }
+
+    private void grow() {
+        int capacity = 2 * address.length;
+        address = Arrays.copyOf(address, capacity);
+        machineCode = Arrays.copyOf(machineCode, capacity);
+        format = Arrays.copyOf(format, capacity);
+        sectionId = Arrays.copyOf(sectionId, capacity);
+        fileId = Arrays.copyOf(fileId, capacity);
+        payloadStart = Arrays.copyOf(payloadStart, capacity);
+        wordCount = Arrays.copyOf(wordCount, capacity);
+        rawLineStart = Arrays.copyOf(rawLineStart, capacity);
+    }
+
+    private void ensurePayload(int extra) {
+        if (payloadSize + extra > payload.length) {
+            payload = Arrays.copyOf(payload, Math.max(payloadSize + extra, 2 * payload.length));
+        }
+    }
+}
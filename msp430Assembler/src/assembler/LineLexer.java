@@ -0,0 +1,186 @@
+package assembler;
+
+/**
+ * PassOne için tek geçişli satır tarayıcısı.
+ * Satırı regex, split veya ara String üretmeden bir kez tarar ve
+ * etiket / mnemonic / boyut eki / operand bölgelerinin başlangıç-bitiş indekslerini tutar.
+ * Aynı nesne her satır için yeniden kullanılır.
+ */
+public class LineLexer {
+
+    private CharSequence line;
+
+    private int contentStart;   // Baştaki boşluklardan sonraki ilk karakter
+    private int contentEnd;     // Yorum ve sondaki boşluklar atıldıktan sonraki bitiş
+
+    private int labelStart, labelEnd;       // "ETIKET:" (iki nokta hariç), yoksa -1
+    private int nameStart, nameEnd;         // "ISIM .equ deger" biçimindeki isim, yoksa -1
+    private int mnemonicStart, mnemonicEnd; // Boyut eki hariç mnemonic
+    private int tokenEnd;                   // Boyut eki dahil mnemonic token'ının sonu
+    private char sizeSuffix;                // 'B', 'W' veya 0
+    private int operandStart, operandEnd;   // Operand bölgesi, yoksa -1
+
+    /**
+     * Satırı tarar. Satır boşsa veya sadece yorumdan oluşuyorsa false döner.
+     */
+    public boolean scan(CharSequence line) {
+        this.line = line;
+        labelStart = labelEnd = -1;
+        nameStart = nameEnd = -1;
+        mnemonicStart = mnemonicEnd = tokenEnd = -1;
+        operandStart = operandEnd = -1;
+        sizeSuffix = 0;
+
+        // Yorumun başladığı yeri ve anlamlı içeriğin sınırlarını bul
+        int end = line.length();
+        for (int i = 0; i < end; i++) {
+            if (line.charAt(i) == ';') {
+                end = i;
+                break;
+            }
+        }
+        int start = skipSpaces(0, end);
+        while (end > start && isSpace(line.charAt(end - 1))) end--;
+        contentStart = start;
+        contentEnd = end;
+        if (start >= end) return false;
+
+        // İlk token: "ETIKET:" ise etiket olarak ayır
+        int pos = start;
+        int tEnd = tokenEndFrom(pos);
+        if (line.charAt(tEnd - 1) == ':') {
+            labelStart = pos;
+            labelEnd = tEnd - 1;
+            pos = skipSpaces(tEnd, end);
+            if (pos >= end) return true; // Sadece etiket
+            tEnd = tokenEndFrom(pos);
+        }
+
+        // "ISIM .equ deger" / "ISIM .set deger" biçimi
+        int next = skipSpaces(tEnd, end);
+        if (next < end && isIdentifier(pos, tEnd)) {
+            int nextEnd = tokenEndFrom(next);
+            if (regionEqualsIgnoreCase(next, nextEnd, ".equ") || regionEqualsIgnoreCase(next, nextEnd, ".set")) {
+                nameStart = pos;
+                nameEnd = tEnd;
+                pos = next;
+                tEnd = nextEnd;
+                next = skipSpaces(tEnd, end);
+            }
+        }
+
+        mnemonicStart = pos;
+        mnemonicEnd = tEnd;
+        tokenEnd = tEnd;
+
+        // .B / .W eki (direktiflerde aranmaz)
+        if (line.charAt(pos) != '.' && tEnd - pos > 2 && line.charAt(tEnd - 2) == '.') {
+            char s = Character.toUpperCase(line.charAt(tEnd - 1));
+            if (s == 'B' || s == 'W') {
+                sizeSuffix = s;
+                mnemonicEnd = tEnd - 2;
+            }
+        }
+
+        if (next < end) {
+            operandStart = next;
+            operandEnd = end;
+        }
+        return true;
+    }
+
+    public boolean hasLabel() {
+        return labelStart >= 0;
+    }
+
+    public boolean hasName() {
+        return nameStart >= 0;
+    }
+
+    public boolean hasMnemonic() {
+        return mnemonicStart >= 0;
+    }
+
+    public boolean hasOperands() {
+        return operandStart >= 0;
+    }
+
+    /** 'B', 'W' veya ek yoksa 0 */
+    public char getSizeSuffix() {
+        return sizeSuffix;
+    }
+
+    public String getLabel() {
+        return hasLabel() ? text(labelStart, labelEnd) : null;
+    }
+
+    public String getName() {
+        return hasName() ? text(nameStart, nameEnd) : null;
+    }
+
+    /** Boyut eki atılmış, büyük harfe çevrilmiş mnemonic (tek allocation). */
+    public String getMnemonicUpper() {
+        if (!hasMnemonic()) return null;
+        char[] buf = new char[mnemonicEnd - mnemonicStart];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = Character.toUpperCase(line.charAt(mnemonicStart + i));
+        }
+        return new String(buf);
+    }
+
+    public String getOperands() {
+        return hasOperands() ? text(operandStart, operandEnd) : null;
+    }
+
+    /** Etiket çıkarılmış, yorumsuz ve kırpılmış satır (Instruction.rawLine için). */
+    public String getStatementText() {
+        return hasMnemonic() ? text(mnemonicStart, contentEnd) : null;
+    }
+
+    /** Mnemonic token'ı (boyut eki dahil) verilen anahtar kelimeye büyük/küçük harf duyarsız eşit mi? */
+    public boolean mnemonicIs(String keyword) {
+        return hasMnemonic() && regionEqualsIgnoreCase(mnemonicStart, tokenEnd, keyword);
+    }
+
+    public boolean isDirective() {
+        return hasMnemonic() && line.charAt(mnemonicStart) == '.';
+    }
+
+    private String text(int start, int end) {
+        return line.subSequence(start, end).toString();
+    }
+
+    private int skipSpaces(int pos, int end) {
+        while (pos < end && isSpace(line.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private int tokenEndFrom(int pos) {
+        while (pos < contentEnd && !isSpace(line.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private boolean isIdentifier(int start, int end) {
+        char first = line.charAt(start);
+        if (!(Character.isLetter(first) || first == '_')) return false;
+        for (int i = start + 1; i < end; i++) {
+            char c = line.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) return false;
+        }
+        return true;
+    }
+
+    private boolean regionEqualsIgnoreCase(int start, int end, String keyword) {
+        if (end - start != keyword.length()) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != Character.toLowerCase(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(char c) {
+        return c <= ' ';
+    }
+}
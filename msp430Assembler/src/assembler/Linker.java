@@ -1,17 +1,21 @@
 package assembler;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * .obj dosyalarından okunan komutları (sütun tabanlı InstructionStore) bölümlere yerleştirir,
+ * relocation'ları çözer ve bellek segmentlerini oluşturur. Komutlar satır indeksleriyle işlenir;
+ * dosya/section eşleştirmeleri depodaki int kimlikler üzerinden yapılır.
+ */
 public class Linker {
 
-    private final List<Instruction> originalInstructions;
+    private final InstructionStore instructions;
     private final SymbolTable originalSymbolTable;
     private final List<RelocationEntry> originalRelocationTable;
 
-    private List<Instruction> finalInstructions;
     private SymbolTable finalSymbolTable;
     private final Map<String, MemorySegment> segments = new LinkedHashMap<>();
+    private final MemoryImage image = new MemoryImage(); // Tüm segmentlerin yazıldığı ortak bellek görüntüsü
     private final List<SectionContribution> sectionContributions = new ArrayList<>();
 
     private final Map<String, Integer> defaultOrigins = Map.of(
@@ -20,129 +24,166 @@ public class Linker {
             ".bss", 0x3000
     );
 
-    public Linker(List<Instruction> instructions, SymbolTable symbolTable, List<RelocationEntry> relocationTable) {
-        this.originalInstructions = instructions;
+    // Her parçanın (contribution) adrese göre sıralı satırları ve tanımladığı semboller
+    private final List<int[]> chunkRows = new ArrayList<>();
+    private final List<List<SymbolTable.SymbolEntry>> chunkSymbols = new ArrayList<>();
+
+    public Linker(InstructionStore instructions, SymbolTable symbolTable, List<RelocationEntry> relocationTable) {
+        this.instructions = instructions;
         this.originalSymbolTable = symbolTable;
         this.originalRelocationTable = relocationTable;
     }
 
-    private void placeChunk(SectionContribution chunk, int baseAddress, List<Instruction> finalInstructions, SymbolTable finalSymbolTable, List<RelocationEntry> finalRelocations) {
+    private void placeChunk(int chunkIndex, int baseAddress, SymbolTable finalSymbolTable) {
+        SectionContribution chunk = sectionContributions.get(chunkIndex);
         chunk.finalAddress = baseAddress;
         int relocationOffset = baseAddress - chunk.origin;
 
-        // Bu parçaya ait instruction'ları, sembolleri ve relocation'ları bul ve güncelle
-        originalInstructions.stream()
-                .filter(i -> chunk.sourceFile.equals(i.getSourceFile()) && chunk.sectionName.equals(i.getSection()))
-                .forEach(inst -> {
-                    inst.setAddress(inst.getAddress() + relocationOffset);
-                    finalInstructions.add(inst);
-                });
+        // Bu parçaya ait instruction'ları ve sembolleri güncelle
+        for (int row : chunkRows.get(chunkIndex)) {
+            instructions.setAddress(row, instructions.address(row) + relocationOffset);
+        }
 
-        originalSymbolTable.getAllSymbols().values().stream()
-                .filter(s -> chunk.sourceFile.equals(s.getSourceFile()) && chunk.sectionName.equals(s.getSection()))
-                .forEach(s -> finalSymbolTable.define(s.getLabel(), s.getAddress() + relocationOffset, s.getBinding()));
-
-        originalRelocationTable.stream()
-            .filter(r -> {
-                // Bu relocation entry'sinin ait olduğu instruction'ı bul.
-                Instruction ownerInstruction = originalInstructions.stream()
-                        .filter(i -> {
-                            // Instruction'ın başlangıç adresi, relocation adresinden önce veya ona eşit olmalı.
-                            if (r.getAddress() < i.getAddress()) return false;
-                            // Relocation adresi, instruction'ın kapladığı alan içinde olmalı.
-                            return r.getAddress() < (i.getAddress() + calculateInstructionSize(i));
-                        })
-                        .findFirst().orElse(null);
-
-                // Eğer instruction bulunduysa ve bu chunk'a aitse, bu relocation entry'sini işle.
-                return ownerInstruction != null &&
-                       chunk.sourceFile.equals(ownerInstruction.getSourceFile()) &&
-                       chunk.sectionName.equals(ownerInstruction.getSection());
-            })
-            .forEach(r -> finalRelocations.add(new RelocationEntry(r.getSymbol(), r.getAddress() + relocationOffset, r.getType())));
+        for (SymbolTable.SymbolEntry s : chunkSymbols.get(chunkIndex)) {
+            finalSymbolTable.define(s.getLabel(), s.getAddress() + relocationOffset, s.getBinding());
+        }
     }
 
     public void link() {
         // --- 1. Adım: Her bölüm parçasının (contribution) bilgilerini hesapla ---
         // Her bir .obj dosyasından gelen .text, .data gibi bölümlerin başlangıç adreslerini ve
         // boyutlarını tespit et. Bu parçalar daha sonra birleştirilecek.
-        Map<String, Map<String, List<Instruction>>> instructionsByFileAndSection = new HashMap<>();
-        for (Instruction i : originalInstructions) {
-            instructionsByFileAndSection
-                    .computeIfAbsent(i.getSourceFile(), k -> new HashMap<>())
-                    .computeIfAbsent(i.getSection(), k -> new ArrayList<>())
-                    .add(i);
+        IdRegistry files = instructions.getFiles();
+        IdRegistry sections = instructions.getSections();
+        int[][] chunkIndex = new int[files.size() + 1][sections.size()]; // [dosya + 1][section]; dosyası bilinmeyen satırlar 0'da
+        for (int[] bySection : chunkIndex) Arrays.fill(bySection, -1);
+
+        int rowCount = instructions.size();
+        int[] rowChunk = new int[rowCount];
+        List<int[]> bounds = new ArrayList<>(); // {origin, maxAddr, satır sayısı}
+        for (int row = 0; row < rowCount; row++) {
+            int file = instructions.fileId(row) + 1;
+            int section = instructions.sectionId(row);
+            int chunk = chunkIndex[file][section];
+            int address = instructions.address(row);
+            int end = address + calculateInstructionSize(row);
+            if (chunk < 0) {
+                chunk = chunkIndex[file][section] = bounds.size();
+                bounds.add(new int[]{address, end, 0});
+            }
+            int[] b = bounds.get(chunk);
+            b[0] = Math.min(b[0], address);
+            b[1] = Math.max(b[1], end);
+            b[2]++;
+            rowChunk[row] = chunk;
+        }
+
+        // Her parçanın satırları, orijinal adrese göre (eşitlikte dosya sırasıyla) sıralı
+        long[][] sortKeys = new long[bounds.size()][];
+        int[] filled = new int[bounds.size()];
+        for (int c = 0; c < bounds.size(); c++) sortKeys[c] = new long[bounds.get(c)[2]];
+        for (int row = 0; row < rowCount; row++) {
+            int c = rowChunk[row];
+            sortKeys[c][filled[c]++] = ((long) instructions.address(row) << 32) | row;
+        }
+        for (int c = 0; c < bounds.size(); c++) {
+            Arrays.sort(sortKeys[c]);
+            int[] rows = new int[sortKeys[c].length];
+            for (int i = 0; i < rows.length; i++) rows[i] = (int) sortKeys[c][i];
+            chunkRows.add(rows);
+
+            int[] b = bounds.get(c);
+            int row = rows[0];
+            sectionContributions.add(new SectionContribution(instructions.fileId(row), instructions.sectionId(row), b[0], b[1] - b[0]));
+            chunkSymbols.add(new ArrayList<>());
+        }
+
+        // Sembolleri tanımlandıkları parçaya bir kez dağıt (dosya/section kimliğiyle doğrudan indeksleme)
+        for (SymbolTable.SymbolEntry s : originalSymbolTable.getAllSymbols().values()) {
+            int file = s.getSourceFileId() + 1;
+            int section = s.getSectionId();
+            if (file < 0 || file >= chunkIndex.length || section < 0 || section >= chunkIndex[file].length) continue;
+            int chunk = chunkIndex[file][section];
+            if (chunk >= 0) chunkSymbols.get(chunk).add(s);
         }
 
-        for (var fileEntry : instructionsByFileAndSection.entrySet()) {
-            String sourceFile = fileEntry.getKey();
-            for (var sectionEntry : fileEntry.getValue().entrySet()) {
-                String sectionName = sectionEntry.getKey();
-                List<Instruction> chunkInstructions = sectionEntry.getValue();
-                if (chunkInstructions.isEmpty()) continue;
-
-                int origin = chunkInstructions.stream().mapToInt(Instruction::getAddress).min().getAsInt();
-                int maxAddr = chunkInstructions.stream().mapToInt(i -> i.getAddress() + calculateInstructionSize(i)).max().getAsInt();
-                int length = maxAddr - origin;
-                sectionContributions.add(new SectionContribution(sourceFile, sectionName, origin, length));
+        // Relocation'ları sahibi olan parçaya ata (adresler henüz taşınmamışken)
+        List<List<RelocationEntry>> chunkRelocations = new ArrayList<>();
+        List<List<Integer>> chunkRelocationRows = new ArrayList<>();
+        for (int c = 0; c < bounds.size(); c++) {
+            chunkRelocations.add(new ArrayList<>());
+            chunkRelocationRows.add(new ArrayList<>());
+        }
+        for (RelocationEntry r : originalRelocationTable) {
+            int owner = findOwnerRow(r.getSourceFileId(), r.getAddress());
+            if (owner < 0) {
+                System.err.println("Linker Hatası: Relocation adresi için instruction bulunamadı: " + String.format("0x%04X", r.getAddress()));
+                continue;
             }
+            chunkRelocations.get(rowChunk[owner]).add(r);
+            chunkRelocationRows.get(rowChunk[owner]).add(owner);
         }
 
         // --- 2. Adım: Bölümleri yerleştir ve adresleri yeniden hesapla ---
         // Bölümleri (.text, .data, .bss sırasıyla) ve içindeki parçaları belleğe yerleştir.
         // .org ile belirtilmiş mutlak adresli parçalar önceliklidir. Diğerleri art arda eklenir.
         // Bu adımda tüm sembollerin ve komutların nihai adresleri belirlenir.
-        finalInstructions = new ArrayList<>();
         finalSymbolTable = new SymbolTable();
-        List<RelocationEntry> finalRelocations = new ArrayList<>();
-        Map<String, Integer> placementCounters = new HashMap<>(defaultOrigins);
+        List<Integer> placementOrder = new ArrayList<>();
+        int[] placementCounters = new int[sections.size()];
+        defaultOrigins.forEach((name, origin) -> placementCounters[sections.idOf(name)] = origin);
 
-        // Bölümleri sırala: .text, .data, .bss...
-        List<String> sortedSectionNames = sectionContributions.stream()
-                .map(sc -> sc.sectionName)
+        // Bölümleri sırala: .text, .data, .bss... (kayıtta kimlikleri 0, 1, 2; diğerleri ilk görülme sırasıyla sonra)
+        List<Integer> sortedSectionIds = sectionContributions.stream()
+                .map(sc -> sc.sectionId)
                 .distinct()
-                .sorted(Comparator.comparingInt(s -> defaultOrigins.containsKey(s) ? new ArrayList<>(defaultOrigins.keySet()).indexOf(s) : Integer.MAX_VALUE))
-                .collect(Collectors.toList());
-
-        for (String sectionName : sortedSectionNames) {
-            List<SectionContribution> allChunks = sectionContributions.stream()
-                    .filter(sc -> sc.sectionName.equals(sectionName))
-                    .collect(Collectors.toList());
+                .sorted(Comparator.comparingInt(id -> id <= SectionManager.BSS ? id : Integer.MAX_VALUE))
+                .toList();
+
+        for (int sectionId : sortedSectionIds) {
+            String sectionName = sections.name(sectionId);
+            List<Integer> allChunks = new ArrayList<>();
+            for (int c = 0; c < sectionContributions.size(); c++) {
+                if (sectionContributions.get(c).sectionId == sectionId) allChunks.add(c);
+            }
 
             // Find absolute chunks (defined with .ORG) vs relocatable ones
-            Optional<SectionContribution> absoluteChunkOpt = allChunks.stream()
-                    .filter(c -> c.origin != 0)
-                    .findFirst(); // Assuming at most one absolute per section for simplicity
+            List<Integer> absoluteChunks = allChunks.stream()
+                    .filter(c -> sectionContributions.get(c).origin != 0)
+                    .toList(); // Assuming at most one absolute per section for simplicity
 
-            List<SectionContribution> relocatableChunks = allChunks.stream()
-                    .filter(c -> c.origin == 0)
-                    .sorted(Comparator.comparing(c -> c.sourceFile)) // Keep relocatable sorted for determinism
-                    .collect(Collectors.toList());
+            List<Integer> relocatableChunks = allChunks.stream()
+                    .filter(c -> sectionContributions.get(c).origin == 0)
+                    .sorted(Comparator.comparing(c -> String.valueOf(sectionContributions.get(c).sourceFile))) // Keep relocatable sorted for determinism
+                    .toList();
 
-            if (allChunks.stream().filter(c -> c.origin != 0).count() > 1) {
+            if (absoluteChunks.size() > 1) {
                 throw new IllegalStateException("Linker Hatası: '" + sectionName + "' bölümü, .ORG ile birden fazla mutlak başlangıç adresine sahip.");
             }
 
             int currentAddress;
 
             // First, place the absolute chunk, if it exists. It dictates the base address.
-            if (absoluteChunkOpt.isPresent()) {
-                SectionContribution absChunk = absoluteChunkOpt.get();
+            if (!absoluteChunks.isEmpty()) {
+                int absChunk = absoluteChunks.get(0);
+                SectionContribution abs = sectionContributions.get(absChunk);
                 // Place it at its own origin. The relocation offset will be 0.
-                placeChunk(absChunk, absChunk.origin, finalInstructions, finalSymbolTable, finalRelocations);
-                currentAddress = absChunk.origin + absChunk.length;
+                placeChunk(absChunk, abs.origin, finalSymbolTable);
+                placementOrder.add(absChunk);
+                currentAddress = abs.origin + abs.length;
             } else {
                 // No absolute chunk, start from the default for this section.
-                currentAddress = placementCounters.getOrDefault(sectionName, 0);
+                currentAddress = placementCounters[sectionId];
             }
 
             // Now, place all relocatable chunks consecutively after the absolute one (or the default start).
-            for (SectionContribution relChunk : relocatableChunks) {
-                placeChunk(relChunk, currentAddress, finalInstructions, finalSymbolTable, finalRelocations);
-                currentAddress += relChunk.length;
+            for (int relChunk : relocatableChunks) {
+                placeChunk(relChunk, currentAddress, finalSymbolTable);
+                placementOrder.add(relChunk);
+                currentAddress += sectionContributions.get(relChunk).length;
             }
 
-            placementCounters.put(sectionName, currentAddress);
+            placementCounters[sectionId] = currentAddress;
         }
         
         // --- 3. Adım: REF sembollerini final tabloya ekle ---
@@ -161,167 +202,190 @@ public class Linker {
         // Sembol referanslarını (örn: CALL #etiket) nihai adreslerle değiştir.
         // Bu, ya bir komutun ekstra kelimesini (extraWord) ya da JUMP komutunun
         // makine kodundaki offset'i güncellemeyi içerir.
-        for (RelocationEntry entry : finalRelocations) {
-            String symbol = entry.getSymbol();
-            int fixupAddr = entry.getAddress();
-
-            if (!finalSymbolTable.contains(symbol)) {
-                System.err.println("Linker Hatası: Sembol bulunamadı: " + symbol);
-                continue;
-            }
-            int resolvedAddress = finalSymbolTable.getAddress(symbol);
-            Instruction targetInst = findInstructionToPatch(finalInstructions, fixupAddr);
-
-            if (targetInst == null) {
-                System.err.println("Linker Hatası: Relocation adresi için instruction bulunamadı: " + String.format("0x%04X", fixupAddr));
-                continue;
-            }
-
-            switch (entry.getType()) {
-                case ABSOLUTE_16BIT:
-                    // Bu yama bir extraWord'ü hedefler.
-                    int instructionStartAddr = targetInst.getAddress();
-                    // Makine kodundan sonraki ilk kelime
-                    int firstExtraWordAddr = instructionStartAddr + ((targetInst.getMachineCode() != null && targetInst.getMachineCode() != 0) ? 2 : 0);
-                    int byteOffsetFromFirstExtraWord = fixupAddr - firstExtraWordAddr;
-
-                    if (byteOffsetFromFirstExtraWord >= 0 && byteOffsetFromFirstExtraWord % 2 == 0) {
-                        int extraWordIndex = byteOffsetFromFirstExtraWord / 2;
-                        if (extraWordIndex < targetInst.getExtraWords().size()) {
-                            targetInst.getExtraWords().set(extraWordIndex, resolvedAddress);
-                        } else {
-                            System.err.println("Linker Hatası: extraWord index sınır dışında. Adres: " + String.format("0x%04X", fixupAddr));
-                        }
-                    } else {
-                        System.err.println("Linker Hatası: Geçersiz extraWord adresi. Adres: " + String.format("0x%04X", fixupAddr));
-                    }
-                    break;
-
-                case PC_RELATIVE_10BIT:
-                    // Bu yama, komutun kendi makine kodunu hedefler.
-                    int offset = (resolvedAddress - fixupAddr - 2) / 2;
-                    int originalMachineCode = targetInst.getMachineCode();
-                    // 10 bitlik offset'i makine kodunun alt 10 bitine yerleştir.
-                    int newMachineCode = (originalMachineCode & 0xFC00) | (offset & 0x03FF);
-                    targetInst.setMachineCode(newMachineCode);
-                    break;
+        for (int chunk : placementOrder) {
+            int relocationOffset = sectionContributions.get(chunk).finalAddress - sectionContributions.get(chunk).origin;
+            List<RelocationEntry> relocations = chunkRelocations.get(chunk);
+            for (int i = 0; i < relocations.size(); i++) {
+                patch(relocations.get(i), chunkRelocationRows.get(chunk).get(i), relocationOffset);
             }
         }
         
         // --- 5. Adım: Bellek segmentlerini oluştur ve yaz ---
-        // Nihai adreslere göre sıralanmış komut listesini kullanarak,
+        // Nihai adreslere göre sıralanmış satırları kullanarak,
         // .text, .data gibi son bellek segmentlerini oluştur.
-        finalInstructions.sort(Comparator.comparingInt(Instruction::getAddress));
-        Map<String, List<Instruction>> finalInstructionsBySection = finalInstructions.stream()
-                .collect(Collectors.groupingBy(Instruction::getSection));
+        for (int sectionId : sortedSectionIds) {
+            String sectionName = sections.name(sectionId);
+            int count = 0;
+            for (int c = 0; c < chunkRows.size(); c++) {
+                if (instructions.sectionId(chunkRows.get(c)[0]) == sectionId) count += chunkRows.get(c).length;
+            }
+            if (count == 0) continue;
+
+            long[] keys = new long[count];
+            int k = 0;
+            for (int c = 0; c < chunkRows.size(); c++) {
+                if (instructions.sectionId(chunkRows.get(c)[0]) != sectionId) continue;
+                for (int row : chunkRows.get(c)) {
+                    keys[k++] = ((long) instructions.address(row) << 32) | row;
+                }
+            }
+            Arrays.sort(keys);
 
-        for (String sectionName : sortedSectionNames) {
-            List<Instruction> sectionInstructions = finalInstructionsBySection.get(sectionName);
-            if (sectionInstructions == null || sectionInstructions.isEmpty()) continue;
-            
-            int origin = sectionInstructions.get(0).getAddress();
-            int maxAddr = sectionInstructions.stream().mapToInt(i -> i.getAddress() + calculateInstructionSize(i)).max().getAsInt();
+            int origin = (int) (keys[0] >>> 32);
+            int maxAddr = origin;
+            for (long key : keys) {
+                int row = (int) key;
+                maxAddr = Math.max(maxAddr, instructions.address(row) + calculateInstructionSize(row));
+            }
             int length = maxAddr - origin;
             
-            MemorySegment segment = new MemorySegment(sectionName, origin, length);
+            for (MemorySegment other : segments.values()) {
+                if (origin < other.getOrigin() + other.getLength() && other.getOrigin() < origin + length) {
+                    System.err.println("Linker Hatası: '" + sectionName + "' bölümü '" + other.getName()
+                            + "' bölümüyle çakışıyor; çakışan adreslerde " + sectionName + " geçerli olacak.");
+                }
+            }
+            MemorySegment segment = new MemorySegment(sectionName, origin, length, image);
             segments.put(sectionName, segment);
 
-            for (Instruction inst : sectionInstructions) {
-                writeInstructionToSegment(segment, inst);
+            for (long key : keys) {
+                writeInstructionToSegment(segment, (int) key);
             }
         }
     }
-    
+
+    /** Relocation'ı sahibi olan satırın nihai adresine göre uygular. */
+    private void patch(RelocationEntry entry, int targetRow, int relocationOffset) {
+        String symbol = entry.getSymbol();
+        int fixupAddr = entry.getAddress() + relocationOffset;
+
+        if (!finalSymbolTable.contains(symbol)) {
+            System.err.println("Linker Hatası: Sembol bulunamadı: " + symbol);
+            return;
+        }
+        int resolvedAddress = finalSymbolTable.getAddress(symbol);
+
+        switch (entry.getType()) {
+            case ABSOLUTE_16BIT:
+                // Bu yama bir extraWord'ü hedefler.
+                int instructionStartAddr = instructions.address(targetRow);
+                // Makine kodundan sonraki ilk kelime
+                int firstExtraWordAddr = instructionStartAddr + (hasMachineCode(targetRow) ? 2 : 0);
+                int byteOffsetFromFirstExtraWord = fixupAddr - firstExtraWordAddr;
+
+                if (byteOffsetFromFirstExtraWord >= 0 && byteOffsetFromFirstExtraWord % 2 == 0) {
+                    int extraWordIndex = byteOffsetFromFirstExtraWord / 2;
+                    if (extraWordIndex < instructions.wordCount(targetRow)) {
+                        instructions.setWord(targetRow, extraWordIndex, resolvedAddress);
+                    } else {
+                        System.err.println("Linker Hatası: extraWord index sınır dışında. Adres: " + String.format("0x%04X", fixupAddr));
+                    }
+                } else {
+                    System.err.println("Linker Hatası: Geçersiz extraWord adresi. Adres: " + String.format("0x%04X", fixupAddr));
+                }
+                break;
+
+            case PC_RELATIVE_10BIT:
+                // Bu yama, komutun kendi makine kodunu hedefler.
+                int offset = (resolvedAddress - fixupAddr - 2) / 2;
+                // Hedef .ref ile başka dosyadan geldiğinde menzil ancak burada bilinir; kırpılmış offset yanlış yere atlardı
+                if (offset < PassOne.MIN_JUMP_OFFSET || offset > PassOne.MAX_JUMP_OFFSET) {
+                    throw new IllegalStateException(String.format(
+                            "Linker Hatası: %s: 0x%04X adresindeki atlamanın hedefi '%s' menzil dışında (%d kelime, izin verilen %d..%d)",
+                            IdRegistry.FILES.name(entry.getSourceFileId()), fixupAddr, symbol, offset,
+                            PassOne.MIN_JUMP_OFFSET, PassOne.MAX_JUMP_OFFSET));
+                }
+                int originalMachineCode = instructions.machineCode(targetRow);
+                // 10 bitlik offset'i makine kodunun alt 10 bitine yerleştir.
+                int newMachineCode = (originalMachineCode & 0xFC00) | (offset & 0x03FF);
+                instructions.setMachineCode(targetRow, newMachineCode);
+                break;
+        }
+    }
+
     /**
-     * Verilen adresi içeren komutu bulur.
+     * Verilen (henüz taşınmamış) adresi içeren komut satırını bulur.
      * Bir relocation entry'sinin adresi, genellikle komutun kendisinin değil,
      * komutun içindeki (veya hemen sonrasındaki) değiştirilecek bir 'extra word'ün adresidir.
-     * Bu metot, bu adresi kapsayan doğru komutu bulur.
+     * Sadece relocation'ın geldiği dosyanın parçalarına bakılır; her parçada satırlar adrese göre
+     * sıralı olduğundan ikili arama yapılır. Birden çok section eşleşirse dosyada önce gelen satır seçilir.
      */
-    private Instruction findInstructionToPatch(List<Instruction> instructions, int address) {
-        // fixup adresi bir extraWord'ün adresidir, instruction'ın değil.
-        // Adresi 'address' olan extraWord'ü içeren instruction'ı bul.
-        // Bu daha sağlam bir implementasyon.
-        for(Instruction inst : instructions) {
-            int startAddr = inst.getAddress();
-            int size = calculateInstructionSize(inst);
-            int endAddr = startAddr + size;
-            
-            // Adres, bu komutun başlangıcına eşit veya büyük OLMALI ve bitiş adresinden önce olmalı.
-            if (address >= startAddr && address < endAddr) {
-                return inst;
+    private int findOwnerRow(int fileId, int address) {
+        int owner = -1;
+        for (int c = 0; c < chunkRows.size(); c++) {
+            if (sectionContributions.get(c).fileId != fileId) continue;
+            int[] rows = chunkRows.get(c);
+            // Başlangıcı address'ten küçük veya eşit olan son satır
+            int lo = 0, hi = rows.length - 1, found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (instructions.address(rows[mid]) <= address) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            // Boyutsuz satırları (sadece etiket) atla; aynı section'da boyutlu satırlar çakışmaz
+            while (found >= 0 && calculateInstructionSize(rows[found]) == 0) found--;
+            if (found < 0) continue;
+
+            int row = rows[found];
+            if (address < instructions.address(row) + calculateInstructionSize(row) && (owner < 0 || row < owner)) {
+                owner = row;
             }
         }
-        return null; // bulunamadı
+        return owner;
     }
 
-    private void writeInstructionToSegment(MemorySegment mem, Instruction inst) {
-        int offset = inst.getAddress() - mem.getOrigin();
-        int currentOffset = offset;
-        
-        boolean isDataDirective = (inst.getMachineCode() == null || inst.getMachineCode() == 0) &&
-                (!inst.getExtraWords().isEmpty() || !inst.getExtraBytes().isEmpty());
+    private boolean hasMachineCode(int row) {
+        int code = instructions.machineCode(row);
+        return code != InstructionStore.NO_CODE && code != 0;
+    }
 
-        if (!isDataDirective && inst.getMachineCode() != null) {
-            mem.writeWord(currentOffset, inst.getMachineCode());
-            currentOffset += 2;
-        }
+    private void writeInstructionToSegment(MemorySegment mem, int row) {
+        // Sadece etiket olan satırlar bellekte yer kaplamaz
+        if (calculateInstructionSize(row) == 0) return;
 
-        if (inst.getExtraWords() != null) {
-            for (int extra : inst.getExtraWords()) {
-                mem.writeWord(currentOffset, extra);
-                currentOffset += 2;
-            }
-        }
+        int currentOffset = instructions.address(row) - mem.getOrigin();
 
-        if (inst.getExtraBytes() != null) {
-            for (int b : inst.getExtraBytes()) {
-                mem.writeByte(currentOffset, (byte) (b & 0xFF));
-                currentOffset += 1;
-            }
+        // Veri direktiflerinin (.word, .byte, .string) makine kodu yoktur
+        if (hasMachineCode(row)) {
+            mem.writeWord(currentOffset, instructions.machineCode(row));
+            currentOffset += 2;
         }
-    }
 
-    private int calculateInstructionSize(Instruction inst) {
-        int size = 0;
+        // Ek kelimeler (little-endian) ve byte'lar depoda art arda durduğundan segmente toplu kopyalanır
+        mem.writeBytes(currentOffset, instructions.payload(), instructions.payloadOffset(row), instructions.payloadSize(row));
+    }
 
+    private int calculateInstructionSize(int row) {
         // An instruction from an object file is either:
         // 1. A real instruction with a 2-byte machine code.
         // 2. A data directive (.word, .byte, .string) which may have a machine code of 0 but has extra words/bytes.
         // 3. A pure label definition, which has no machine code and no extras. These have zero size.
-        
-        boolean hasMachineCode = inst.getMachineCode() != null && inst.getMachineCode() != 0;
-        boolean hasExtras = !inst.getExtraWords().isEmpty() || !inst.getExtraBytes().isEmpty();
-        
-        if (!hasMachineCode && !hasExtras) {
-            // This is a pure label definition (e.g., "label:"). It has zero size.
-            return 0; 
-        }
-
-        // A data directive is identified by having extras but no non-zero machine code.
-        boolean isDataDirective = !hasMachineCode && hasExtras;
-
-        if (!isDataDirective) {
-             // It's a regular instruction, occupies 2 bytes for its main opcode.
-            size += 2;
-        }
-
-        size += inst.getExtraWords().size() * 2;
-        size += inst.getExtraBytes().size();
-
-        return size;
+        int extras = instructions.payloadSize(row);
+        return (hasMachineCode(row) ? 2 : 0) + extras;
     }
 
     public static class SectionContribution {
         public final String sourceFile;
         public final String sectionName;
+        public final int fileId;    // IdRegistry.FILES kimliği
+        public final int sectionId; // IdRegistry.SECTIONS kimliği
         public final int origin;
         public final int length;
         public int finalAddress; // Linker tarafından doldurulacak
 
         public SectionContribution(String sourceFile, String sectionName, int origin, int length) {
-            this.sourceFile = sourceFile;
-            this.sectionName = sectionName;
+            this(IdRegistry.FILES.idOf(sourceFile), IdRegistry.SECTIONS.idOf(sectionName), origin, length);
+        }
+
+        SectionContribution(int fileId, int sectionId, int origin, int length) {
+            this.fileId = fileId;
+            this.sectionId = sectionId;
+            this.sourceFile = IdRegistry.FILES.name(fileId);
+            this.sectionName = IdRegistry.SECTIONS.name(sectionId);
             this.origin = origin;
             this.length = length;
         }
@@ -331,6 +395,11 @@ public class Linker {
         return segments;
     }
 
+    /** Linklenmiş programın bellek görüntüsü (segmentler bu görüntünün pencereleridir). */
+    public MemoryImage getMemoryImage() {
+        return image;
+    }
+
     public List<SectionContribution> getSectionContributions() {
         return Collections.unmodifiableList(sectionContributions);
     }
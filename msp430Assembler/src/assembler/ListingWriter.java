@@ -0,0 +1,268 @@
+package assembler;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembler listeleme çıktısını PassTwo'nun kodladığı Instruction listesinden üretir.
+ * PassTwo artık listeleme yapmaz; bu aşama sadece istendiğinde (GUI listeleme sekmesi, .lst dosyası)
+ * çalışır ve satırları String.format yerine tablo tabanlı hex yazıcıyla doğrudan bir Writer'a akıtır.
+ * Her komut satırında statik çevrim (cycle) sayısı gösterilir; sonda etiket ve section bazında
+ * boyut/çevrim özeti yer alır (düz kod toplamı, döngü tekrarları hesaba katılmaz).
+ */
+public class ListingWriter {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final String NOTE_INDENT = "                          ; "; // "Assembly" sütununa hizalı
+    private static final String HEADER = "Line  SPC    Code     Cyc Assembly\n"
+            + "----- ------ -------- --- ------------------------\n";
+
+    /** Bir etiket veya section için toplam boyut ve çevrim */
+    private static final class Totals {
+        final String section;
+        int size;
+        int cycles;
+
+        Totals(String section) {
+            this.section = section;
+        }
+    }
+
+    private final Writer out;
+    private final SymbolTable symbolTable;
+    private int lineCounter = 0;
+
+    private final Map<String, Totals> labelTotals = new LinkedHashMap<>();
+    private final Map<String, Totals> sectionTotals = new LinkedHashMap<>();
+    private final Map<String, Totals> activeLabels = new LinkedHashMap<>(); // section -> içinde bulunulan etiket
+
+    private ListingWriter(Writer out, SymbolTable symbolTable) {
+        this.out = out;
+        this.symbolTable = symbolTable;
+    }
+
+    /** Listelemeyi verilen Writer'a yazar. */
+    public static void write(List<Instruction> instructions, SymbolTable symbolTable, Writer out) throws IOException {
+        ListingWriter writer = new ListingWriter(out, symbolTable);
+        out.write(HEADER);
+        for (Instruction inst : instructions) {
+            writer.writeInstruction(inst);
+        }
+        writer.writeSummary();
+        out.flush();
+    }
+
+    /** Listelemeyi .lst dosyasına yazar. */
+    public static void writeFile(List<Instruction> instructions, SymbolTable symbolTable, String filename) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(filename))) {
+            write(instructions, symbolTable, out);
+        }
+    }
+
+    /** GUI için listelemeyi metin olarak verir. */
+    public static String toString(List<Instruction> instructions, SymbolTable symbolTable) {
+        StringWriter out = new StringWriter(64 * instructions.size() + HEADER.length());
+        try {
+            write(instructions, symbolTable, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter IOException fırlatmaz
+        }
+        return out.toString();
+    }
+
+    private void writeInstruction(Instruction inst) throws IOException {
+        for (String note : inst.getListingNotes()) {
+            out.write(NOTE_INDENT);
+            out.write(note);
+            out.write('\n');
+        }
+
+        String section = inst.getSection() != null ? inst.getSection() : ".text";
+        if (inst.getLabel() != null) {
+            Totals totals = new Totals(section);
+            labelTotals.put(inst.getLabel(), totals);
+            activeLabels.put(section, totals);
+        }
+
+        // Sadece etiket olan satırlar listelemede bir satır kaplamaz,
+        // bir sonraki komutun SPC'si ile birlikte gösterilirler.
+        if (inst.getMnemonic() == null) return;
+
+        PassTwo.TransformedInstruction ti = inst.getTransformed() != null
+                ? inst.getTransformed() : PassTwo.transformPseudoInstruction(inst);
+        int addr = inst.getAddress();
+        String mnemonic = ti.mnemonic();
+
+        if (inst.getAssemblyError() != null) {
+            errorLine(addr, inst.getAssemblyError());
+            return;
+        }
+
+        if (!mnemonic.startsWith(".")) {
+            Integer machineCode = inst.getMachineCode();
+            if (machineCode == null) return;
+            OpcodeTable.Descriptor descriptor = ti.descriptor() != null ? ti.descriptor() : OpcodeTable.lookup(mnemonic);
+            int cycles = descriptor != null ? OpcodeTable.cycles(descriptor, inst.getOperands()) : 0;
+            account(section, 2 + 2 * inst.getExtraWordCount(), cycles);
+
+            lineStart(addr);
+            out.write("   ");
+            hex(machineCode, 4);
+            out.write("     ");
+            padRight(cycles > 0 ? Integer.toString(cycles) : "", 4);
+            out.write(String.valueOf(inst.getRawLine()));
+            out.write('\n');
+
+            int nextAddr = addr + 2;
+            for (int i = 0; i < inst.getExtraWordCount(); i++) {
+                dataLine(nextAddr, inst.getExtraWord(i), 4);
+                nextAddr += 2;
+            }
+            return;
+        }
+
+        switch (mnemonic.toLowerCase()) {
+            case ".usect": // sadece yer ayırır
+            case ".sect":  // sadece section değiştirir
+                return;
+            case ".space": {
+                int size = LiteralResolver.resolve(ti.operands().trim(), symbolTable);
+                account(section, size, 0);
+                lineStart(addr);
+                out.write("                (space ");
+                out.write(Integer.toString(size));
+                out.write(" bytes)\n");
+                return;
+            }
+            case ".string": {
+                String str = ti.operands().trim();
+                str = str.substring(1, str.length() - 1); // Tırnakları çıkar (PassTwo doğruladı)
+                account(section, str.length() + 1, 0);
+                for (int i = 0; i < str.length(); i++) {
+                    char c = str.charAt(i);
+                    lineStart(addr++);
+                    out.write("   ");
+                    hex(c, 2);
+                    out.write("           '");
+                    out.write(c);
+                    out.write("'\n");
+                }
+                lineStart(addr);
+                out.write("   00           '\\0'\n"); // NULL terminator
+                return;
+            }
+            case ".float":
+            case ".byte":
+                account(section, inst.getExtraByteCount(), 0);
+                for (int i = 0; i < inst.getExtraByteCount(); i++) {
+                    dataLine(addr++, inst.getExtraByte(i), 2);
+                }
+                return;
+            case ".word":
+                account(section, 2 * inst.getExtraWordCount(), 0);
+                for (int i = 0; i < inst.getExtraWordCount(); i++) {
+                    dataLine(addr, inst.getExtraWord(i), 4);
+                    addr += 2;
+                }
+                return;
+            case ".resw": {
+                int wordCount = LiteralResolver.resolve(ti.operands().trim(), symbolTable);
+                account(section, 2 * wordCount, 0);
+                for (int i = 0; i < wordCount; i++) {
+                    dataLine(addr, 0, 4);
+                    addr += 2;
+                }
+                return;
+            }
+            default:
+                lineStart(addr);
+                out.write("                ");
+                out.write(mnemonic);
+                out.write(' ');
+                out.write(ti.operands());
+                out.write('\n');
+        }
+    }
+
+    private void account(String section, int size, int cycles) {
+        Totals sectionTotal = sectionTotals.computeIfAbsent(section, Totals::new);
+        sectionTotal.size += size;
+        sectionTotal.cycles += cycles;
+        Totals label = activeLabels.get(section);
+        if (label != null) {
+            label.size += size;
+            label.cycles += cycles;
+        }
+    }
+
+    /** Etiket ve section bazında boyut/çevrim özeti */
+    private void writeSummary() throws IOException {
+        if (!labelTotals.isEmpty()) {
+            out.write("\nLabel Summary\n");
+            out.write(String.format("%-20s %-10s %6s %7s\n", "Label", "Section", "Bytes", "Cycles"));
+            out.write("-------------------- ---------- ------ -------\n");
+            for (Map.Entry<String, Totals> e : labelTotals.entrySet()) {
+                Totals t = e.getValue();
+                out.write(String.format("%-20s %-10s %6d %7d\n", e.getKey(), t.section, t.size, t.cycles));
+            }
+        }
+        if (!sectionTotals.isEmpty()) {
+            out.write("\nSection Summary\n");
+            out.write(String.format("%-10s %6s %7s\n", "Section", "Bytes", "Cycles"));
+            out.write("---------- ------ -------\n");
+            for (Map.Entry<String, Totals> e : sectionTotals.entrySet()) {
+                Totals t = e.getValue();
+                out.write(String.format("%-10s %6d %7d\n", e.getKey(), t.size, t.cycles));
+            }
+        }
+    }
+
+    private void padRight(String text, int width) throws IOException {
+        out.write(text);
+        for (int i = text.length(); i < width; i++) {
+            out.write(' ');
+        }
+    }
+
+    /** "%-5d %04X" */
+    private void lineStart(int addr) throws IOException {
+        String line = Integer.toString(lineCounter++);
+        out.write(line);
+        for (int i = line.length(); i < 5; i++) {
+            out.write(' ');
+        }
+        out.write(' ');
+        hex(addr, 4);
+    }
+
+    /** "%-5d %04X   %0nX\n" */
+    private void dataLine(int addr, int value, int digits) throws IOException {
+        lineStart(addr);
+        out.write("   ");
+        hex(value, digits);
+        out.write('\n');
+    }
+
+    /** "%-5d %04X   HATA     mesaj\n" */
+    private void errorLine(int addr, String message) throws IOException {
+        lineStart(addr);
+        out.write("   HATA         ");
+        out.write(String.valueOf(message));
+        out.write('\n');
+    }
+
+    /** En az 'digits' basamaklı büyük harf hex yazar (%0nX ile aynı). */
+    private void hex(int value, int digits) throws IOException {
+        int n = Math.max(digits, (35 - Integer.numberOfLeadingZeros(value)) / 4);
+        for (int shift = (n - 1) * 4; shift >= 0; shift -= 4) {
+            out.write(HEX[(value >>> shift) & 0xF]);
+        }
+    }
+}
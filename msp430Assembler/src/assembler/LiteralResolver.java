@@ -2,59 +2,160 @@ package assembler;
 
 public class LiteralResolver {
 
-    public static int resolve(String literal) {
-        literal = literal.trim();
+    /** Tarama sonucunun durumu */
+    public enum Status {
+        VALUE,        // Geçerli bir sayısal/karakter literal
+        NOT_LITERAL,  // Literal değil; sembolik ifade olarak değerlendirilmeli
+        MALFORMED     // Literal biçiminde ama geçersiz (örn. int aralığına sığmıyor)
+    }
 
+    /** Exception fırlatmadan dönen üç durumlu tarama sonucu */
+    public record Result(Status status, int value) {
+        private static final Result NOT_LITERAL = new Result(Status.NOT_LITERAL, 0);
+        private static final Result MALFORMED = new Result(Status.MALFORMED, 0);
 
-        // 1. Binary: 0b1010 or 1010B
-        if (literal.matches("0[bB][01]+")) {
-            return Integer.parseInt(literal.substring(2), 2);
+        public boolean isValue() {
+            return status == Status.VALUE;
         }
-        if (literal.matches("[01]+[bB]")) {
-            return Integer.parseInt(literal.substring(0, literal.length() - 1), 2);
+    }
+
+    private static final int NOT_A_DIGIT = 99;
+
+    public static int resolve(String literal) {
+        Result result = scan(literal);
+        if (!result.isValue()) {
+            throw new IllegalArgumentException("Geçersiz literal formatı: " + literal.trim());
         }
+        return result.value();
+    }
+
+    /**
+     * Literal'i tek geçişte sınıflandırır ve değerini hesaplar. Exception fırlatmaz.
+     * Desteklenen biçimler:
+     *  1. Binary: 0b1010 veya 1010B
+     *  2. Octal: 0123 veya 77Q
+     *  3. Decimal (varsayılan, işaretli olabilir)
+     *  4. Hexadecimal: 0x2A veya 3Fh (ilk karakter rakam olmalı)
+     *  5. Character literal: 'A'
+     */
+    public static Result scan(String literal) {
+        int start = 0;
+        int end = literal.length();
+        while (start < end && literal.charAt(start) <= ' ') start++;
+        while (end > start && literal.charAt(end - 1) <= ' ') end--;
+        int n = end - start;
+        if (n == 0) return Result.NOT_LITERAL;
+
+        char first = literal.charAt(start);
 
-        // 2. Octal: 0123 or 77Q
-        if (literal.matches("0[0-7]+")) {
-            return Integer.parseInt(literal.substring(1), 8);
+        // Character literal: 'A'
+        if (first == '\'') {
+            if (n == 3 && literal.charAt(end - 1) == '\'') {
+                return new Result(Status.VALUE, literal.charAt(start + 1));
+            }
+            return Result.NOT_LITERAL;
         }
-        if (literal.matches("[0-7]+[Qq]")) {
-            return Integer.parseInt(literal.substring(0, literal.length() - 1), 8);
+
+        // İşaretli sayılar sadece decimal olabilir
+        if (first == '-' || first == '+') {
+            for (int i = start + 1; i < end; i++) {
+                if (digitValue(literal.charAt(i)) > 9) return Result.NOT_LITERAL;
+            }
+            if (n == 1) return Result.NOT_LITERAL;
+            return parse(literal, start + 1, end, 10, first == '-');
         }
 
-        // 3. Decimal (varsayılan)
-        if (literal.matches("[-+]?\\d+")) {
-            return Integer.parseInt(literal);
+        if (digitValue(first) > 9) return Result.NOT_LITERAL;
+        if (n == 1) return new Result(Status.VALUE, first - '0');
+
+        // Tek geçiş: ilk karakter, ortadaki karakterler ve son karakterin en büyük basamak değerleri
+        char second = literal.charAt(start + 1);
+        char last = literal.charAt(end - 1);
+        int firstDigit = digitValue(first);
+        int lastDigit = digitValue(last);
+        int middleMax = -1;       // [1, n-2] aralığı
+        int afterPrefixMax = -1;  // [2, n-2] aralığı (0x / 0b önekinden sonrası)
+        for (int i = start + 1; i < end - 1; i++) {
+            char c = literal.charAt(i);
+            int d = digitValue(c);
+            if (d == NOT_A_DIGIT && !Character.isLetter(c)) {
+                return Result.NOT_LITERAL; // Operatör veya parantez: ifade
+            }
+            if (i >= start + 2) afterPrefixMax = Math.max(afterPrefixMax, d);
+            middleMax = Math.max(middleMax, d);
         }
 
-        // 4. Hexadecimal: 0x2A or 3Fh (ilk karakter rakam olmalı)
-        if (literal.matches("0[xX][0-9a-fA-F]+")) {
-            return Integer.parseInt(literal.substring(2), 16);
+        boolean zeroPrefix = first == '0';
+        // 1. Binary
+        if (zeroPrefix && (second == 'b' || second == 'B') && n > 2 && Math.max(afterPrefixMax, lastDigit) <= 1) {
+            return parse(literal, start + 2, end, 2, false);
         }
-        if (literal.matches("[0-9][0-9a-fA-F]*[Hh]")) {
-            return Integer.parseInt(literal.substring(0, literal.length() - 1), 16);
+        if ((last == 'b' || last == 'B') && Math.max(firstDigit, middleMax) <= 1) {
+            return parse(literal, start, end - 1, 2, false);
         }
-
-        // 6. Character literal: 'A'
-        if (literal.matches("^'.'$")) {
-            return literal.charAt(1);
+        // 2. Octal
+        if (zeroPrefix && Math.max(middleMax, lastDigit) <= 7) {
+            return parse(literal, start + 1, end, 8, false);
+        }
+        if ((last == 'q' || last == 'Q') && Math.max(firstDigit, middleMax) <= 7) {
+            return parse(literal, start, end - 1, 8, false);
+        }
+        // 3. Decimal
+        if (Math.max(firstDigit, Math.max(middleMax, lastDigit)) <= 9) {
+            return parse(literal, start, end, 10, false);
+        }
+        // 4. Hexadecimal
+        if (zeroPrefix && (second == 'x' || second == 'X') && n > 2 && Math.max(afterPrefixMax, lastDigit) <= 15) {
+            return parse(literal, start + 2, end, 16, false);
+        }
+        if ((last == 'h' || last == 'H') && middleMax <= 15) {
+            return parse(literal, start, end - 1, 16, false);
         }
 
-
-        throw new IllegalArgumentException("Geçersiz literal formatı: " + literal);
+        return Result.NOT_LITERAL;
     }
 
     public static int resolve(String expr, SymbolTable symbolTable) {
-        try {
-            // Önce literal olarak parse etmeye çalış
-            return resolve(expr);
-        } catch (IllegalArgumentException e) {
-            // Olmazsa sembolik ifade gibi değerlendir
-            ExpressionEvaluator evaluator = new ExpressionEvaluator(symbolTable);
-            return evaluator.evaluate(expr);
+        CompiledExpression.Result result = tryResolve(expr, symbolTable);
+        if (!result.isResolved()) {
+            throw new RuntimeException("Geçersiz ifade veya sembol: " + result.unresolvedSymbol());
         }
+        return result.value();
     }
 
+    /**
+     * Literal'i veya sembolik ifadeyi çözer. Tanımsız sembol exception yerine sonuç olarak bildirilir.
+     * Geçersiz literal ve ifade sözdizimi hataları yine exception fırlatır.
+     */
+    public static CompiledExpression.Result tryResolve(String expr, SymbolTable symbolTable) {
+        // Önce literal olarak taramayı dene
+        Result result = scan(expr);
+        switch (result.status()) {
+            case VALUE:
+                return new CompiledExpression.Result(result.value(), null);
+            case MALFORMED:
+                throw new IllegalArgumentException("Geçersiz literal formatı: " + expr.trim());
+            default:
+                // Olmazsa sembolik ifade gibi değerlendir (derlenmiş ifade önbellekten gelir)
+                return ExpressionEvaluator.compile(expr).evaluate(symbolTable);
+        }
+    }
 
+    /** Basamakları önceden doğrulanmış aralığı sayıya çevirir; int taşmasında MALFORMED döner. */
+    private static Result parse(String s, int start, int end, int radix, boolean negative) {
+        long limit = negative ? 1L + Integer.MAX_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * radix + digitValue(s.charAt(i));
+            if (value > limit) return Result.MALFORMED;
+        }
+        return new Result(Status.VALUE, (int) (negative ? -value : value));
+    }
 
+    private static int digitValue(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return NOT_A_DIGIT;
+    }
 }
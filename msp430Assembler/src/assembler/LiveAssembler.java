@@ -0,0 +1,65 @@
+package assembler;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Editördeki kaydedilmemiş kaynağı yazarken yeniden derleyen oturum. PassOne checkpoint'leri sayesinde
+ * her güncellemede sadece ilk değişen satırdan sonrası yeniden işlenir; Pass 2 de sadece yeni oluşturulan
+ * veya değeri değişen bir sembole bağlı komutları yeniden kodlar. Diske hiçbir şey yazılmaz.
+ * Tek bir iş parçacığından (GUI'de canlı derleme executor'ı) kullanılmalıdır.
+ */
+public class LiveAssembler {
+
+    /**
+     * Bir güncellemenin sonucu. Satır hatası varsa listing null, error doludur;
+     * aksi halde errorCount listelemedeki HATA satırı sayısıdır.
+     */
+    public record Result(String listing, int errorCount, String error, int reencoded, int total) {}
+
+    private final String sourceName;
+    private final String baseDir;
+    private final PassOne passOne;
+    private SymbolTable encodedTable = new SymbolTable(); // Son Pass 2'nin kullandığı sembol tablosu
+    private boolean encodeAll = false; // Önceki Pass 2 yarıda kaldıysa hepsi yeniden kodlanır
+
+    public LiveAssembler(String sourceName, String baseDir, boolean peephole) {
+        this.sourceName = sourceName;
+        this.baseDir = baseDir;
+        this.passOne = new PassOne();
+        this.passOne.setPeepholeEnabled(peephole);
+    }
+
+    /** Tamponun yeni içeriğini artımlı olarak derler ve listelemeyi üretir. */
+    public Result update(String text) {
+        List<String> lines = text.lines().toList();
+        int firstNew;
+        try {
+            firstNew = passOne.processBuffer(lines, sourceName, baseDir);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return new Result(null, 1, e.getMessage(), 0, 0);
+        }
+
+        List<Instruction> instructions = passOne.getInstructions();
+        SymbolTable symbolTable = passOne.getSymbolTable();
+        PassTwo passTwo = new PassTwo(symbolTable);
+        int reencoded;
+        try {
+            // Direktif hataları (örn. .word içinde tanımsız sembol) PassTwo'dan istisna olarak çıkar
+            reencoded = passTwo.reassemble(instructions, encodeAll ? 0 : firstNew, encodedTable.changedSymbols(symbolTable));
+        } catch (RuntimeException e) {
+            encodeAll = true;
+            return new Result(null, 1, e.getMessage(), 0, 0);
+        }
+        encodeAll = false;
+        encodedTable = symbolTable; // PassOne sonraki güncellemede bu tabloyu değil bir kopyasını değiştirir
+
+        int errors = 0;
+        for (Instruction inst : instructions) {
+            if (inst.getAssemblyError() != null) errors++;
+        }
+        return new Result(passTwo.getFormattedOutput(), errors, null, reencoded, instructions.size());
+    }
+}
@@ -2,31 +2,36 @@ package assembler;
 
 import java.util.Map;
 
+/**
+ * Segmentlerden programın bellek görüntüsünü verir. Linker'ın segmentleri zaten tek bir
+ * MemoryImage'ı paylaştığından görüntü kopyalanmaz; yazılmamış adresler silinmiş flash gibi 0xFF okunur.
+ */
 public class Loader {
 
-    private final byte[] memoryImage = new byte[65536]; // 64KB memory for MSP430
+    private final MemoryImage memoryImage;
 
     public Loader(Map<String, MemorySegment> segments) {
-        // Initialize memory with a default value, e.g., 0xFF, which often represents erased flash
-        for (int i = 0; i < memoryImage.length; i++) {
-            memoryImage[i] = (byte) 0xFF;
+        MemoryImage shared = null;
+        boolean sameImage = true;
+        for (MemorySegment segment : segments.values()) {
+            if (shared == null) shared = segment.getImage();
+            else if (segment.getImage() != shared) sameImage = false;
+        }
+
+        if (shared != null && sameImage) {
+            memoryImage = shared;
+            return;
         }
 
-        // Load each segment into the memory image
+        // Farklı görüntülerdeki (bağımsız oluşturulmuş) segmentler tek bir görüntüde birleştirilir
+        memoryImage = new MemoryImage();
         for (MemorySegment segment : segments.values()) {
-            int origin = segment.getOrigin();
             byte[] data = segment.getContent();
-            // Copy segment data into the main memory image at the correct origin
-            if (origin + data.length <= memoryImage.length) {
-                System.arraycopy(data, 0, memoryImage, origin, data.length);
-            } else {
-                System.err.println("Uyarı: '" + segment.getName() + "' segmenti, başlangıç adresi 0x" + Integer.toHexString(origin) +
-                                   " ve uzunluğu " + data.length + " olan bellek sınırlarını aşıyor.");
-            }
+            memoryImage.write(segment.getOrigin(), data, 0, data.length);
         }
     }
 
-    public byte[] getMemoryImage() {
+    public MemoryImage getMemoryImage() {
         return memoryImage;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package assembler;
+
+import javax.swing.JTextArea;
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sınırlı boyutlu log konsolu. Sadece son 'maxLines' satırı bir halka tamponda (ring buffer) tutar,
+ * böylece uzun link logları ve stack trace'ler belleği büyütmez. Metin herhangi bir iş parçacığından
+ * parça parça eklenebilir.
+ *
+ * GUI'de attach() ile bir JTextArea'ya bağlanır: eklemeler biriktirilir ve her kare aralığında
+ * (FRAME_MILLIS) en fazla bir kez EDT'de alana yansıtılır. Başsız (headless) kullanımda, örneğin
+ * Main'de, mirrorTo() ile eklenen metin ayrıca doğrudan bir PrintStream'e aktarılır.
+ */
+public class LogConsole {
+
+    public static final int DEFAULT_MAX_LINES = 5000;
+    private static final int FRAME_MILLIS = 16;
+    private static final int MAX_PENDING_BYTES = 8192; // printStream satır sonu gelmese de bu boyutta aktarılır
+    private static final int MAX_PENDING_CHARS = 128 * 1024; // Bu kadar birikirse alan tampondan yeniden kurulur
+
+    private final int maxLines;
+    private final String[] lines;   // Halka tampon: tamamlanmış satırlar
+    private int head = 0;           // En eski satırın indeksi
+    private int count = 0;
+    private final StringBuilder partial = new StringBuilder(); // Henüz '\n' gelmemiş son satır
+
+    // attach() ile bağlanan alana henüz yansıtılmamış değişiklikler
+    private final StringBuilder pendingAppend = new StringBuilder();
+    private boolean cleared = false;
+
+    private PrintStream mirror = null;
+
+    public LogConsole() {
+        this(DEFAULT_MAX_LINES);
+    }
+
+    public LogConsole(int maxLines) {
+        if (maxLines < 1) throw new IllegalArgumentException("Satır sınırı en az 1 olmalı: " + maxLines);
+        this.maxLines = maxLines;
+        this.lines = new String[maxLines];
+    }
+
+    /** Başsız kullanım için: eklenen metin ayrıca verilen akışa yazılır. */
+    public synchronized LogConsole mirrorTo(PrintStream out) {
+        this.mirror = out;
+        return this;
+    }
+
+    /** Metni ekler; '\n' ile biten her satır halka tampona geçer, en eski satırlar atılır. */
+    public synchronized void append(CharSequence text) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                partial.append(text, start, i);
+                pushLine(partial.toString());
+                partial.setLength(0);
+                start = i + 1;
+            }
+        }
+        partial.append(text, start, text.length());
+        pendingAppend.append(text);
+        // Alana yansıtılmayan çıktı (GUI'siz kullanım veya çok hızlı log) sınırsız büyümesin
+        if (pendingAppend.length() > MAX_PENDING_CHARS) {
+            cleared = true;
+            pendingAppend.setLength(0);
+        }
+        if (mirror != null) {
+            mirror.append(text);
+            mirror.flush();
+        }
+    }
+
+    /** Konsolu temizler. */
+    public synchronized void clear() {
+        Arrays.fill(lines, null);
+        head = 0;
+        count = 0;
+        partial.setLength(0);
+        pendingAppend.setLength(0);
+        cleared = true;
+    }
+
+    /** Konsolu temizler ve metni ekler (JTextArea.setText karşılığı). */
+    public synchronized void setText(String text) {
+        clear();
+        append(text);
+    }
+
+    /** Tampondaki son satırlar (en fazla maxLines) ve yarım kalan satır. */
+    public synchronized String getText() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(lines[(head + i) % maxLines]).append('\n');
+        }
+        return sb.append(partial).toString();
+    }
+
+    private void pushLine(String line) {
+        if (count < maxLines) {
+            lines[(head + count++) % maxLines] = line;
+        } else {
+            lines[head] = line; // En eski satırın yerine yaz
+            head = (head + 1) % maxLines;
+        }
+    }
+
+    /**
+     * Konsolu bir JTextArea'ya bağlar. Değişiklikler EDT'de, FRAME_MILLIS aralıklarla
+     * toplu olarak uygulanır; alan da maxLines satırla sınırlı tutulur. EDT'den çağrılmalıdır.
+     */
+    public void attach(JTextArea area) {
+        area.setText(getText());
+        synchronized (this) {
+            pendingAppend.setLength(0);
+            cleared = false;
+        }
+        Timer timer = new Timer(FRAME_MILLIS, e -> render(area));
+        timer.setCoalesce(true);
+        timer.start();
+    }
+
+    private void render(JTextArea area) {
+        String text;
+        boolean reset;
+        synchronized (this) {
+            if (!cleared && pendingAppend.length() == 0) return; // Değişiklik yok, repaint yok
+            reset = cleared;
+            text = reset ? getText() : pendingAppend.toString();
+            pendingAppend.setLength(0);
+            cleared = false;
+        }
+        if (reset) {
+            area.setText(text);
+        } else {
+            area.append(text);
+            trim(area);
+        }
+        area.setCaretPosition(area.getDocument().getLength());
+    }
+
+    /** Alanın başından maxLines'ı aşan satırları siler. */
+    private void trim(JTextArea area) {
+        int excess = area.getLineCount() - 1 - maxLines;
+        if (excess <= 0) return;
+        try {
+            area.getDocument().remove(0, area.getLineStartOffset(excess));
+        } catch (BadLocationException e) {
+            area.setText(getText());
+        }
+    }
+
+    /**
+     * Konsola yazan PrintStream (stack trace'ler için). Baytlar tek tek değil, satır sonunda
+     * veya tampon dolduğunda UTF-8 olarak çözülüp parça halinde eklenir.
+     */
+    public PrintStream printStream() {
+        return new PrintStream(new ConsoleOutputStream(), true, StandardCharsets.UTF_8);
+    }
+
+    private final class ConsoleOutputStream extends OutputStream {
+        private byte[] buffer = new byte[256];
+        private int size = 0;
+
+        @Override
+        public synchronized void write(int b) {
+            ensureCapacity(size + 1);
+            buffer[size++] = (byte) b;
+            if (b == '\n' || size >= MAX_PENDING_BYTES) flush();
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            ensureCapacity(size + len);
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+            if (size >= MAX_PENDING_BYTES) {
+                flush();
+                return;
+            }
+            for (int i = off + len - 1; i >= off; i--) {
+                if (b[i] == '\n') {
+                    flush();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (size == 0) return;
+            append(new String(buffer, 0, size, StandardCharsets.UTF_8));
+            size = 0;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length * 2));
+            }
+        }
+    }
+}
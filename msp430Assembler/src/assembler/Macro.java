@@ -1,19 +1,34 @@
 package assembler;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Bir macro tanımını temsil eder: isim, parametreler ve gövde.
+ * Gövde, tanım sırasında (.endm) bir kez şablona derlenir: her satır sabit metin parçaları
+ * ile parametre / benzersiz etiket yuvalarından oluşur. Genişletme sadece parçaları birleştirir.
  */
 public class Macro {
+    /** Şablon yuvası: benzersiz etiket eki ('etiket?' -> 'etiket_N') */
+    private static final int UNIQUE_SLOT = -1;
+
     private final String name;
     private final List<String> parameters;
     private final List<String> body;
 
+    private final String[][] lineLiterals; // Her satır için slots.length + 1 sabit parça
+    private final int[][] lineSlots;       // Parametre indeksi veya UNIQUE_SLOT
+
     public Macro(String name, List<String> parameters, List<String> body) {
         this.name = name;
         this.parameters = parameters;
         this.body = body;
+        this.lineLiterals = new String[body.size()][];
+        this.lineSlots = new int[body.size()][];
+        for (int i = 0; i < body.size(); i++) {
+            compileLine(i, body.get(i));
+        }
     }
 
     public String getName() {
@@ -27,4 +42,80 @@ public class Macro {
     public List<String> getBody() {
         return body;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Macro gövdesini verilen argümanlarla genişletir ve her satırı çıktıya verir.
+     * @param args Parametre sırasına göre (kırpılmış) argümanlar.
+     * @param uniqueId Bu çağrıya ait benzersiz etiket numarası.
+     */
+    public void expand(String[] args, int uniqueId, Consumer<String> out) {
+        String uniqueSuffix = "_" + uniqueId;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lineLiterals.length; i++) {
+            String[] literals = lineLiterals[i];
+            int[] slots = lineSlots[i];
+            sb.setLength(0);
+            sb.append(literals[0]);
+            for (int j = 0; j < slots.length; j++) {
+                sb.append(slots[j] == UNIQUE_SLOT ? uniqueSuffix : args[slots[j]]);
+                sb.append(literals[j + 1]);
+            }
+            out.accept(sb.toString());
+        }
+    }
+
+    /**
+     * Gövde satırını kelimelere (\w dizileri) ayırır. Parametre adıyla tam eşleşen kelimeler
+     * parametre yuvası olur; '?' ile biten kelimelerde '?' benzersiz etiket yuvasına dönüşür.
+     */
+    private void compileLine(int index, String line) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int pos = 0;
+        int length = line.length();
+        while (pos < length) {
+            if (!isWordChar(line.charAt(pos))) {
+                literal.append(line.charAt(pos++));
+                continue;
+            }
+            int start = pos;
+            while (pos < length && isWordChar(line.charAt(pos))) pos++;
+
+            int paramIndex = parameterIndex(line, start, pos);
+            if (paramIndex >= 0) {
+                literals.add(literal.toString());
+                slots.add(paramIndex);
+                literal.setLength(0);
+            } else {
+                literal.append(line, start, pos);
+            }
+
+            if (pos < length && line.charAt(pos) == '?') {
+                literals.add(literal.toString());
+                slots.add(UNIQUE_SLOT);
+                literal.setLength(0);
+                pos++;
+            }
+        }
+        literals.add(literal.toString());
+
+        lineLiterals[index] = literals.toArray(new String[0]);
+        lineSlots[index] = slots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int parameterIndex(String line, int start, int end) {
+        for (int i = 0; i < parameters.size(); i++) {
+            String param = parameters.get(i);
+            if (param.length() == end - start && line.startsWith(param, start)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -0,0 +1,122 @@
+package assembler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Macro genişletme ölçümü: macrolib.lib'deki delay ve add3 macrolarına dönüşümlü N çağrı (varsayılan 100.000).
+ * Önceden derlenmiş şablonla genişletme (Macro.expand), eski çağrı başına replaceAll yapan genişletmeyle
+ * aynı çağrılar üzerinde karşılaştırılır ve iki çıktının aynı olduğu kontrol edilir. Ayrıca aynı kaynağın
+ * MacroProcessor akışından tamamen geçirilme süresi ölçülür.
+ *
+ * Kullanım: java assembler.MacroBenchmark [macrolib.lib yolu] [çağrı sayısı]
+ */
+public class MacroBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        File library = new File(args.length > 0 ? args[0] : "macrolib.lib").getAbsoluteFile();
+        int calls = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        if (!library.isFile()) {
+            System.err.println("HATA: Macro kütüphanesi bulunamadı: " + library);
+            System.exit(2);
+        }
+
+        Map<String, Macro> macros = loadMacros(library);
+        Macro delay = macros.get("delay");
+        Macro add3 = macros.get("add3");
+        if (delay == null || add3 == null) {
+            System.err.println("HATA: Kütüphanede delay/add3 macroları yok: " + library);
+            System.exit(2);
+        }
+
+        List<String> source = new ArrayList<>(calls + 1);
+        source.add(".mlib \"" + library.getPath() + "\"");
+        Macro[] targets = new Macro[calls];
+        String[][] callArgs = new String[calls][];
+        for (int i = 0; i < calls; i++) {
+            String call = i % 2 == 0 ? "delay #" + (i % 5000 + 1) : "add3 R4,R5,R6,R7";
+            source.add("    " + call);
+            targets[i] = i % 2 == 0 ? delay : add3;
+            String[] argList = call.split("\\s+", 2)[1].split(",");
+            for (int j = 0; j < argList.length; j++) argList[j] = argList[j].trim();
+            callArgs[i] = argList;
+        }
+
+        // Doğruluk: iki genişletme aynı satırları üretmeli
+        List<String> templated = new ArrayList<>();
+        List<String> legacy = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            targets[i].expand(callArgs[i], i, templated::add);
+            legacyExpand(targets[i], callArgs[i], i, legacy::add);
+        }
+        if (!templated.equals(legacy)) {
+            System.err.println("HATA: Şablon genişletmesi eski genişletmeyle aynı çıktıyı üretmiyor");
+            System.exit(1);
+        }
+
+        long[] sink = new long[1];
+        Consumer<String> out = line -> sink[0] += line.length();
+
+        double templateMs = best(() -> {
+            for (int i = 0; i < calls; i++) targets[i].expand(callArgs[i], i, out);
+        });
+        double legacyMs = best(() -> {
+            for (int i = 0; i < calls; i++) legacyExpand(targets[i], callArgs[i], i, out);
+        });
+        double streamMs = best(() -> {
+            try (MacroProcessor.ExpandedSource expanded = new MacroProcessor().expand(source, 0, library.getParent())) {
+                while (expanded.hasNext()) sink[0] += expanded.next().length();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        System.out.printf("%d çağrı (%d satır), en iyi %d ölçüm:%n", calls, templated.size(), MEASURED_ROUNDS);
+        System.out.printf("  Şablon (Macro.expand)   : %9.2f ms%n", templateMs);
+        System.out.printf("  Eski replaceAll         : %9.2f ms%n", legacyMs);
+        System.out.printf("  Hızlanma                : %9.1f kat%n", legacyMs / templateMs);
+        System.out.printf("  MacroProcessor akışı    : %9.2f ms%n", streamMs);
+        if (sink[0] == 42) System.out.println(); // JIT'in ölçülen işi atmasını engeller
+    }
+
+    /** Kütüphaneyi tek bir .mlib satırlık kaynakla MacroProcessor'a okutur ve tanımlanan macroları döner. */
+    private static Map<String, Macro> loadMacros(File library) throws Exception {
+        MacroProcessor processor = new MacroProcessor();
+        try (MacroProcessor.ExpandedSource expanded =
+                     processor.expand(List.of(".mlib \"" + library.getPath() + "\""), 0, library.getParent())) {
+            while (expanded.hasNext()) expanded.next();
+        }
+        return processor.snapshot().macros();
+    }
+
+    /** Önceki sürümdeki genişletme: her gövde satırında parametre ve etiket başına replaceAll. */
+    private static void legacyExpand(Macro macro, String[] args, int uniqueId, Consumer<String> out) {
+        List<String> parameters = macro.getParameters();
+        for (String bodyLine : macro.getBody()) {
+            String expandedLine = bodyLine;
+            for (int i = 0; i < parameters.size() && i < args.length; i++) {
+                expandedLine = expandedLine.replaceAll("\\b" + Pattern.quote(parameters.get(i)) + "\\b", args[i]);
+            }
+            expandedLine = expandedLine.replaceAll("(\\w+)\\?", "$1_" + uniqueId);
+            out.accept(expandedLine);
+        }
+    }
+
+    private static double best(Runnable run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) run.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+}
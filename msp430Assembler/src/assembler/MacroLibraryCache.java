@@ -0,0 +1,176 @@
+package assembler;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Ayrıştırılmış .mlib macro kütüphanelerinin önbelleği.
+ * Anahtar kütüphanenin kanonik yolu, geçerlilik ise dosya içeriğinin SHA-256 özetidir;
+ * içerik değişmedikçe aynı kütüphane bir derleme grubunda yalnızca bir kez ayrıştırılır.
+ * Kayıt, kütüphanenin .mlib ile (dolaylı olarak) içe aldığı tüm kütüphanelerin yol ve özetlerini de
+ * tutar; bunlardan biri değişmişse kayıt geçersizdir.
+ * İsteğe bağlı olarak JSON biçiminde diske yazılıp sonraki derlemelerde geri okunabilir.
+ */
+public class MacroLibraryCache {
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final Map<String, LibraryEntry> entries = new HashMap<>();
+    private boolean dirty = false;
+    private Set<String> reparsed = null; // reparseAll() sonrası: sadece bu derlemede ayrıştırılan kütüphaneler verilir
+
+    private static class LibraryEntry {
+        final String hash;
+        final Map<String, Macro> macros;
+        final Map<String, String> dependencies; // İç içe kütüphanelerin kanonik yolu -> özeti
+
+        LibraryEntry(String hash, Map<String, Macro> macros, Map<String, String> dependencies) {
+            this.hash = hash;
+            this.macros = macros;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * Kütüphane önbellekte, içeriği ve içe aldığı kütüphanelerin hiçbiri değişmemişse macro haritasını,
+     * aksi halde null döner. İç içe kütüphanelerin güncel özeti diskten okunarak hesaplanır.
+     */
+    public synchronized Map<String, Macro> get(String canonicalPath, String contentHash) {
+        if (reparsed != null && !reparsed.contains(canonicalPath)) return null;
+        LibraryEntry entry = entries.get(canonicalPath);
+        if (entry == null || !entry.hash.equals(contentHash)) return null;
+        for (Map.Entry<String, String> dep : entry.dependencies.entrySet()) {
+            try {
+                if (!hash(Files.readAllBytes(new File(dep.getKey()).toPath())).equals(dep.getValue())) return null;
+            } catch (IOException e) {
+                return null; // Silinmiş/okunamayan kütüphane: yeniden ayrıştırılınca hata orada bildirilir
+            }
+        }
+        return entry.macros;
+    }
+
+    /** Önbellekteki kaydın iç içe kütüphaneleri (get'ten sonra, kaydı kullananın bağımlılıklarına eklenmesi için). */
+    public synchronized Map<String, String> getDependencies(String canonicalPath) {
+        LibraryEntry entry = entries.get(canonicalPath);
+        return entry != null ? entry.dependencies : Collections.emptyMap();
+    }
+
+    /**
+     * dependencies, kütüphanenin dolaylı olarak içe aldığı tüm kütüphanelerin kanonik yolu -> SHA-256 özetidir.
+     */
+    public synchronized void put(String canonicalPath, String contentHash, Map<String, Macro> macros,
+                                 Map<String, String> dependencies) {
+        entries.put(canonicalPath, new LibraryEntry(contentHash, Collections.unmodifiableMap(new HashMap<>(macros)),
+                Collections.unmodifiableMap(new LinkedHashMap<>(dependencies))));
+        if (reparsed != null) reparsed.add(canonicalPath);
+        dirty = true;
+    }
+
+    /**
+     * Bundan sonra her kütüphane bir kez yeniden ayrıştırılır (--force); ayrıştırılan kütüphane grup içinde
+     * yine önbellekten verilir. Bu derlemenin dokunmadığı kütüphanelerin kayıtları korunur ve diske yine yazılır.
+     */
+    public synchronized void reparseAll() {
+        reparsed = new HashSet<>();
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /** Dosya içeriğinin hex kodlu SHA-256 özetini döner. */
+    public static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 desteklenmiyor", e);
+        }
+    }
+
+    /**
+     * Önbelleği diskten okur. Dosya yoksa veya okunamıyorsa boş bir önbellek döner.
+     */
+    public static MacroLibraryCache load(File cacheFile) {
+        MacroLibraryCache cache = new MacroLibraryCache();
+        if (!cacheFile.isFile()) return cache;
+
+        try {
+            JSONObject root = new JSONObject(new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8));
+            if (!root.has("version") || !root.getString("version").equals(String.valueOf(FORMAT_VERSION))) {
+                return cache;
+            }
+            JSONArray libArr = root.getJSONArray("libraries");
+            for (int i = 0; i < libArr.length(); i++) {
+                JSONObject lib = libArr.getJSONObject(i);
+                Map<String, Macro> macros = new HashMap<>();
+                JSONArray macroArr = lib.getJSONArray("macros");
+                for (int j = 0; j < macroArr.length(); j++) {
+                    JSONObject m = macroArr.getJSONObject(j);
+                    String name = m.getString("name");
+                    macros.put(name.toLowerCase(), new Macro(name, toList(m.getJSONArray("parameters")), toList(m.getJSONArray("body"))));
+                }
+                Map<String, String> dependencies = new LinkedHashMap<>();
+                JSONArray depArr = lib.getJSONArray("dependencies");
+                for (int j = 0; j < depArr.length(); j++) {
+                    JSONObject d = depArr.getJSONObject(j);
+                    dependencies.put(d.getString("path"), d.getString("hash"));
+                }
+                cache.entries.put(lib.getString("path"), new LibraryEntry(lib.getString("hash"),
+                        Collections.unmodifiableMap(macros), Collections.unmodifiableMap(dependencies)));
+            }
+        } catch (Exception e) {
+            System.err.println("Uyarı: Macro önbelleği okunamadı, yeniden oluşturulacak: " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /** Önbelleği JSON olarak diske yazar. */
+    public synchronized void save(File cacheFile) throws IOException {
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+
+        JSONArray libArr = new JSONArray();
+        for (Map.Entry<String, LibraryEntry> lib : entries.entrySet()) {
+            JSONArray depArr = new JSONArray();
+            for (Map.Entry<String, String> dep : lib.getValue().dependencies.entrySet()) {
+                depArr.put(new JSONObject().put("path", dep.getKey()).put("hash", dep.getValue()));
+            }
+            JSONArray macroArr = new JSONArray();
+            for (Macro m : lib.getValue().macros.values()) {
+                macroArr.put(new JSONObject()
+                        .put("name", m.getName())
+                        .put("parameters", new JSONArray(m.getParameters()))
+                        .put("body", new JSONArray(m.getBody())));
+            }
+            libArr.put(new JSONObject()
+                    .put("path", lib.getKey())
+                    .put("hash", lib.getValue().hash)
+                    .put("dependencies", depArr)
+                    .put("macros", macroArr));
+        }
+        JSONObject root = new JSONObject().put("version", String.valueOf(FORMAT_VERSION)).put("libraries", libArr);
+        Files.writeString(cacheFile.toPath(), root.toString(2) + "\n", StandardCharsets.UTF_8);
+        dirty = false;
+    }
+
+    private static List<String> toList(JSONArray arr) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            list.add(arr.getString(i));
+        }
+        return list;
+    }
+}
@@ -1,12 +1,15 @@
 package assembler;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * Kaynak koddaki macroları işleyen, genişleten ve PassOne için hazırlayan sınıf.
@@ -15,132 +18,319 @@ import java.util.regex.Pattern;
 public class MacroProcessor {
 
     private final Map<String, Macro> macros = new HashMap<>();
+    private final MacroLibraryCache libraryCache; // null ise kütüphaneler her seferinde ayrıştırılır
+    private final Map<String, String> loadedLibraries = new LinkedHashMap<>(); // .mlib ile (dolaylı) yüklenenler: kanonik yol -> özet
     private int uniqueLabelCounter = 0;
 
+    public MacroProcessor() {
+        this(null);
+    }
+
+    /**
+     * @param libraryCache .mlib kütüphaneleri için paylaşılan önbellek (null olabilir).
+     */
+    public MacroProcessor(MacroLibraryCache libraryCache) {
+        this.libraryCache = libraryCache;
+    }
+
     /**
      * Verilen kaynak dosyayı okur, macroları genişletir ve sonucu bir String olarak döner.
      * @param sourcePath Ana kaynak dosyanın yolu.
      * @return Macroları genişletilmiş tam assembly kodu.
      */
     public String expandFile(String sourcePath) throws IOException {
-        List<String> inputLines = Files.readAllLines(Paths.get(sourcePath));
+        List<String> expandedLines = new ArrayList<>();
+        try (ExpandedSource source = expand(sourcePath)) {
+            source.forEachRemaining(expandedLines::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return String.join("\n", expandedLines);
+    }
+
+    /**
+     * Kaynak dosyayı satır satır okuyan ve macroları talep edildikçe genişleten bir akış açar.
+     * Genişletilmiş kod hiçbir zaman bellekte bütün olarak tutulmaz; PassOne satırları doğrudan çeker.
+     * Okuma hataları {@link UncheckedIOException} olarak fırlatılır.
+     */
+    public ExpandedSource expand(String sourcePath) throws IOException {
         // Ana dosyanın bulunduğu dizini alarak .mlib direktifindeki göreceli yolları çözmek için kullan.
         String baseDir = new File(sourcePath).getParent();
-        List<String> expandedLines = processLines(inputLines, baseDir);
-        return String.join("\n", expandedLines);
+        BufferedReader reader = Files.newBufferedReader(Paths.get(sourcePath));
+        return new ExpandedSource(reader, reader.lines().iterator(), 0, baseDir);
     }
 
     /**
-     * Verilen satır listesini işler, macro tanımlarını kaydeder ve macro çağrılarını genişletir.
-     * .mlib direktifi ile karşılaşıldığında kendini özyineli olarak çağırır.
+     * Bellekteki satırları (örn. editör tamponu) 'fromLine' satırından itibaren genişleten akış açar.
+     * Artımlı derlemede macro durumu önce restore() ile o satırdaki checkpoint'e döndürülür.
      */
-    private List<String> processLines(List<String> lines, String baseDir) throws IOException {
-        List<String> outputLines = new ArrayList<>();
-        boolean isDefiningMacro = false;
-        String currentMacroName = null;
-        List<String> currentMacroParams = new ArrayList<>();
-        List<String> currentMacroBody = new ArrayList<>();
+    public ExpandedSource expand(List<String> lines, int fromLine, String baseDir) {
+        return new ExpandedSource(null, lines.subList(fromLine, lines.size()).iterator(), fromLine, baseDir);
+    }
 
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-
-            if (isDefiningMacro) {
-                if (trimmedLine.equalsIgnoreCase(".endm")) {
-                    macros.put(currentMacroName.toLowerCase(), new Macro(currentMacroName, currentMacroParams, currentMacroBody));
-                    isDefiningMacro = false;
-                } else {
-                    currentMacroBody.add(line); // Girintiyi korumak için orijinal satırı ekle
+    /** Tanımlı macrolar ve benzersiz etiket sayacı; checkpoint için kopyalanır (Macro nesneleri değişmez). */
+    public record State(Map<String, Macro> macros, int uniqueLabelCounter) {}
+
+    public State snapshot() {
+        return new State(new HashMap<>(macros), uniqueLabelCounter);
+    }
+
+    public void restore(State state) {
+        macros.clear();
+        macros.putAll(state.macros());
+        uniqueLabelCounter = state.uniqueLabelCounter();
+    }
+
+    /**
+     * Macroları genişletilmiş satırları sırayla veren çekme (pull) tabanlı akış.
+     * Bir macro çağrısının gövdesi sadece o çağrı okunduğunda kuyruğa eklenir.
+     */
+    public class ExpandedSource implements Iterator<String>, Closeable {
+        private final BufferedReader reader; // Dosyadan okunuyorsa kapatılacak okuyucu, aksi halde null
+        private final Iterator<String> lines;
+        private final String baseDir;
+        private final ArrayDeque<String> pending = new ArrayDeque<>();
+        private final MacroDefinition definition = new MacroDefinition();
+        private boolean exhausted = false;
+        private int lineNumber; // Okunan kaynak satırı sayısı
+
+        private ExpandedSource(BufferedReader reader, Iterator<String> lines, int firstLine, String baseDir) {
+            this.reader = reader;
+            this.lines = lines;
+            this.lineNumber = firstLine;
+            this.baseDir = baseDir;
+        }
+
+        /** Şimdiye kadar okunan kaynak satırı sayısı (0 tabanlı sonraki satırın indeksi). */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Okunan her kaynak satırının çıktısı tüketildi ve açık macro tanımı yok mu?
+         * Bu noktada macro durumu ile satır numarası checkpoint almak için yeterlidir.
+         */
+        public boolean atLineBoundary() {
+            return pending.isEmpty() && !definition.active;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (pending.isEmpty() && !exhausted) {
+                    if (!lines.hasNext()) {
+                        exhausted = true;
+                        if (reader != null) reader.close();
+                        definition.checkClosed();
+                    } else {
+                        String line = lines.next();
+                        lineNumber++;
+                        processLine(line, baseDir, definition, pending::add);
+                    }
                 }
-                continue;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return pending.poll();
+        }
 
-            // Yorumu ayıklayalım
-            String effectiveLine = line;
-            int commentIndex = effectiveLine.indexOf(';');
-            if (commentIndex != -1) {
-                effectiveLine = effectiveLine.substring(0, commentIndex);
+        @Override
+        public void close() throws IOException {
+            exhausted = true;
+            if (reader != null) reader.close();
+        }
+    }
+
+    /** Okunmakta olan macro tanımının durumu (.macro ile .endm arası). */
+    private static class MacroDefinition {
+        String name;
+        List<String> params = new ArrayList<>();
+        List<String> body = new ArrayList<>();
+        boolean active = false;
+
+        void checkClosed() {
+            if (active) {
+                throw new IllegalStateException("'" + name + "' adlı macro tanımı '.endm' ile kapatılmadı.");
             }
-            String effectiveTrimmedLine = effectiveLine.trim();
+        }
+    }
 
+    /** ".mlib yol" satırındaki kütüphane dosyası; göreceli yollar kaynağın dizinine göre çözülür. */
+    private static File resolveLibrary(String mlibLine, String baseDir) {
+        String libPath = mlibLine.substring(5).trim().replace("\"", "");
+        File libFile = new File(libPath);
+        if (!libFile.isAbsolute()) {
+            libFile = new File(baseDir, libPath);
+        }
+        return libFile;
+    }
 
-            if (effectiveTrimmedLine.isEmpty()) {
-                outputLines.add(line);
+    /**
+     * Kaynağın özyineli olarak yüklediği .mlib kütüphanelerini, macro genişletmeden sadece satırları
+     * tarayarak bulur (macro tanımlarının içi atlanır). Derleme manifestinin parmak izi için kullanılır.
+     */
+    public static List<File> libraryDependencies(File source) throws IOException {
+        Map<String, File> found = new LinkedHashMap<>();
+        collectLibraries(source, found);
+        return new ArrayList<>(found.values());
+    }
+
+    private static void collectLibraries(File file, Map<String, File> found) throws IOException {
+        boolean inDefinition = false;
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (inDefinition) {
+                if (line.trim().equalsIgnoreCase(".endm")) inDefinition = false;
                 continue;
             }
+            int commentIndex = line.indexOf(';');
+            String effective = (commentIndex != -1 ? line.substring(0, commentIndex) : line).trim();
+            if (effective.isEmpty()) continue;
 
-            String[] parts = effectiveTrimmedLine.split("\\s+", -1);
-            String firstWord = parts.length > 0 ? parts[0] : "";
-            String secondWord = parts.length > 1 ? parts[1] : "";
-
-            if (secondWord.equalsIgnoreCase(".macro")) {
-                // Macro tanımı: "isim .macro param1,param2"
-                isDefiningMacro = true;
-                currentMacroName = firstWord;
-                currentMacroBody = new ArrayList<>();
-
-                String[] macroDefParts = effectiveTrimmedLine.split("\\s+", 3);
-                if (macroDefParts.length > 2) {
-                    currentMacroParams = Arrays.asList(macroDefParts[2].split(","));
-                    // Parametrelerdeki boşlukları temizle
-                    for (int i = 0; i < currentMacroParams.size(); i++) {
-                        currentMacroParams.set(i, currentMacroParams.get(i).trim());
-                    }
-                } else {
-                    currentMacroParams = new ArrayList<>();
+            String[] parts = effective.split("\\s+");
+            if (parts.length > 1 && parts[1].equalsIgnoreCase(".macro")) {
+                inDefinition = true;
+            } else if (parts[0].equalsIgnoreCase(".mlib")) {
+                File lib = resolveLibrary(effective, file.getParent());
+                if (found.putIfAbsent(lib.getCanonicalPath(), lib) == null) {
+                    collectLibraries(lib, found);
                 }
+            }
+        }
+    }
 
-            } else if (firstWord.equalsIgnoreCase(".mlib")) {
-                // Macro kütüphanesi yükle
-                String libPath = effectiveTrimmedLine.substring(5).trim().replace("\"", "");
-                File libFile = new File(libPath);
-                if (!libFile.isAbsolute()) {
-                    libFile = new File(baseDir, libPath);
-                }
-                List<String> libLines = Files.readAllLines(libFile.toPath());
-                // Kütüphane dosyasını işle (bu işlem `macros` haritasını doldurur),
-                // ancak genişletilmiş içeriğini ana çıktıya ekleme.
-                processLines(libLines, libFile.getParent());
-
-            } else if (macros.containsKey(firstWord.toLowerCase())) {
-                // Macro çağırma
-                Macro macro = macros.get(firstWord.toLowerCase());
-                String[] invocationParts = effectiveTrimmedLine.split("\\s+", 2);
-                String[] args = (invocationParts.length > 1) ? invocationParts[1].split(",") : new String[0];
-
-                if (macro.getParameters().size() != args.length) {
-                    throw new IllegalArgumentException(String.format(
-                            "Macro '%s' çağrısı hatalı: %d parametre bekleniyordu, %d verildi.",
-                            macro.getName(), macro.getParameters().size(), args.length));
-                }
+    /**
+     * Bir .mlib kütüphanesindeki macro tanımlarını döner.
+     * Önbellek varsa ve kütüphanenin içeriği değişmemişse ayrıştırma tamamen atlanır.
+     */
+    private Map<String, Macro> loadLibrary(File libFile) throws IOException {
+        byte[] content = Files.readAllBytes(libFile.toPath());
+        String canonicalPath = libFile.getCanonicalPath();
+        String contentHash = MacroLibraryCache.hash(content);
+
+        if (libraryCache != null) {
+            Map<String, Macro> cached = libraryCache.get(canonicalPath, contentHash);
+            if (cached != null) {
+                loadedLibraries.put(canonicalPath, contentHash);
+                loadedLibraries.putAll(libraryCache.getDependencies(canonicalPath));
+                return cached;
+            }
+        }
 
-                uniqueLabelCounter++;
+        // Kütüphane dosyasını ayrı bir işlemci ile işle (bu işlem onun `macros` haritasını doldurur),
+        // ancak genişletilmiş içeriğini ana çıktıya ekleme.
+        MacroProcessor libProcessor = new MacroProcessor(libraryCache);
+        List<String> libLines = new String(content, StandardCharsets.UTF_8).lines().toList();
+        libProcessor.processLines(libLines, libFile.getParent());
 
-                // Parametre -> Argüman eşleştirme haritası oluştur
-                Map<String, String> substitution = new HashMap<>();
-                for (int i = 0; i < macro.getParameters().size(); i++) {
-                    substitution.put(macro.getParameters().get(i), args[i].trim());
-                }
+        // Kayıt, iç içe kütüphanelerin özetleriyle birlikte saklanır; onlardan biri değişince de geçersizdir
+        if (libraryCache != null) {
+            libraryCache.put(canonicalPath, contentHash, libProcessor.macros, libProcessor.loadedLibraries);
+        }
+        loadedLibraries.put(canonicalPath, contentHash);
+        loadedLibraries.putAll(libProcessor.loadedLibraries);
+        return libProcessor.macros;
+    }
 
-                // Macro gövdesini genişlet
-                for (String bodyLine : macro.getBody()) {
-                    String expandedLine = bodyLine;
-                    for (Map.Entry<String, String> entry : substitution.entrySet()) {
-                        // Tam kelime eşleşmesi için regex kullan (örn: 'MOV' içindeki 'M' değişmesin)
-                        expandedLine = expandedLine.replaceAll("\\b" + Pattern.quote(entry.getKey()) + "\\b", entry.getValue());
-                    }
-                    // Benzersiz etiketleri işle ('etiket?' -> 'etiket_123')
-                    expandedLine = expandedLine.replaceAll("(\\w+)\\?", "$1_" + uniqueLabelCounter);
-                    outputLines.add(expandedLine);
-                }
+    /**
+     * Verilen satır listesini işler ve macro tanımlarını kaydeder (.mlib kütüphaneleri için).
+     * Kütüphanenin genişletilmiş içeriği çıktıya eklenmez.
+     */
+    private void processLines(List<String> lines, String baseDir) throws IOException {
+        MacroDefinition definition = new MacroDefinition();
+        for (String line : lines) {
+            processLine(line, baseDir, definition, l -> { });
+        }
+        definition.checkClosed();
+    }
+
+    /**
+     * Tek bir satırı işler: macro tanımını kaydeder, macro çağrısını genişletir veya satırı olduğu gibi çıktıya verir.
+     * .mlib direktifi ile karşılaşıldığında kütüphaneyi özyineli olarak işler.
+     */
+    private void processLine(String line, String baseDir, MacroDefinition definition, Consumer<String> out) throws IOException {
+        String trimmedLine = line.trim();
+
+        if (definition.active) {
+            if (trimmedLine.equalsIgnoreCase(".endm")) {
+                macros.put(definition.name.toLowerCase(), new Macro(definition.name, definition.params, definition.body));
+                definition.active = false;
             } else {
-                // Normal assembly satırı
-                outputLines.add(line);
+                definition.body.add(line); // Girintiyi korumak için orijinal satırı ekle
             }
+            return;
+        }
+
+        // Yorumu ayıklayalım
+        String effectiveLine = line;
+        int commentIndex = effectiveLine.indexOf(';');
+        if (commentIndex != -1) {
+            effectiveLine = effectiveLine.substring(0, commentIndex);
         }
+        String effectiveTrimmedLine = effectiveLine.trim();
+
+
+        if (effectiveTrimmedLine.isEmpty()) {
+            out.accept(line);
+            return;
+        }
+
+        String[] parts = effectiveTrimmedLine.split("\\s+", -1);
+        String firstWord = parts.length > 0 ? parts[0] : "";
+        String secondWord = parts.length > 1 ? parts[1] : "";
+
+        if (secondWord.equalsIgnoreCase(".macro")) {
+            // Macro tanımı: "isim .macro param1,param2"
+            definition.active = true;
+            definition.name = firstWord;
+            definition.body = new ArrayList<>();
+
+            String[] macroDefParts = effectiveTrimmedLine.split("\\s+", 3);
+            if (macroDefParts.length > 2) {
+                definition.params = Arrays.asList(macroDefParts[2].split(","));
+                // Parametrelerdeki boşlukları temizle
+                for (int i = 0; i < definition.params.size(); i++) {
+                    definition.params.set(i, definition.params.get(i).trim());
+                }
+            } else {
+                definition.params = new ArrayList<>();
+            }
+
+        } else if (firstWord.equalsIgnoreCase(".mlib")) {
+            // Macro kütüphanesi yükle
+            macros.putAll(loadLibrary(resolveLibrary(effectiveTrimmedLine, baseDir)));
+
+        } else if (macros.containsKey(firstWord.toLowerCase())) {
+            // Macro çağırma
+            Macro macro = macros.get(firstWord.toLowerCase());
+            String[] invocationParts = effectiveTrimmedLine.split("\\s+", 2);
+            String[] args = (invocationParts.length > 1) ? invocationParts[1].split(",") : new String[0];
+
+            if (macro.getParameters().size() != args.length) {
+                throw new IllegalArgumentException(String.format(
+                        "Macro '%s' çağrısı hatalı: %d parametre bekleniyordu, %d verildi.",
+                        macro.getName(), macro.getParameters().size(), args.length));
+            }
+
+            uniqueLabelCounter++;
+
+            // Argümanları parametre sırasıyla hazırla
+            String[] trimmedArgs = new String[args.length];
+            for (int i = 0; i < args.length; i++) {
+                trimmedArgs[i] = args[i].trim();
+            }
 
-        if (isDefiningMacro) {
-            throw new IllegalStateException("'" + currentMacroName + "' adlı macro tanımı '.endm' ile kapatılmadı.");
+            // Macro gövdesini derlenmiş şablondan genişlet
+            // (parametreler tam kelime olarak değişir, 'etiket?' -> 'etiket_123')
+            macro.expand(trimmedArgs, uniqueLabelCounter, out);
+        } else {
+            // Normal assembly satırı
+            out.accept(line);
         }
-        return outputLines;
     }
-} 
\ No newline at end of file
+}
@@ -3,107 +3,255 @@ package assembler;
 import java.util.List;
 import java.io.IOException;
 import java.io.File;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Map;
 import assembler.ExecutableWriter;
 
+/**
+ * Komut satırı derleme sürücüsü. Verilen .asm dosyalarını (manifeste göre sadece değişenleri)
+ * paralel derler, ardından bu dosyaların .obj'lerini ve açıkça verilen .obj dosyalarını linkler.
+ * make/ninja gibi araçlardan çağrılabilmesi için hata durumunda sıfırdan farklı çıkış kodu döner:
+ * 0 başarılı, 1 derleme/link hatası, 2 hatalı kullanım.
+ */
 public class Main {
 
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_BUILD_ERROR = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = """
+            Kullanım: java assembler.Main [seçenekler] <dosya.asm|dosya.obj>...
+              -o <dosya>          Çıktı dosyası (varsayılan: linked.txt / linked.hex / linked.bin)
+              -f <biçim>          Çıktı biçimi: titxt (varsayılan), hex (Intel HEX), bin (düz ikili)
+              -m, --map <dosya>   Link haritası (.map) da yaz
+              -c                  Sadece derle, linkleme
+              -j <N>              Paralel derleme iş parçacığı sayısı (varsayılan: işlemci sayısı)
+              --obj-dir <dizin>   .obj dosyalarının dizini (varsayılan: obj)
+              --listing           Her kaynak için .lst listeleme dosyası yaz (değişmemiş olsa da derler)
+              --no-peephole       Peephole optimizasyonunu kapat
+              --force             Değişmemiş kaynakları da yeniden derle (macro önbelleği kullanılmaz)
+              -q, --quiet         Sembol tablolarını ve segment dökümlerini yazdırma, sadece hataları bildir
+              -h, --help          Bu yardımı göster
+            Sadece komut satırında verilen girdiler linklenir; obj dizinindeki diğer .obj dosyaları kullanılmaz.
+            """;
+
+    /** Ayrıştırılmış komut satırı seçenekleri */
+    private static final class Options {
+        final List<File> sources = new ArrayList<>();
+        final List<File> objects = new ArrayList<>();
+        File objDir = new File("obj");
+        String output = null;
+        String format = "titxt";
+        String mapFile = null;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        boolean compileOnly = false;
+        boolean listing = false;
+        boolean peephole = true;
+        boolean force = false;
+        boolean quiet = false;
+        boolean help = false;
+    }
+
     public static void main(String[] args) {
-        if (args.length < 1) {
-            System.err.println("Kullanım: java assembler.Main <assembly_dosyasi.asm>");
-            return;
-        }
+        int status = run(args);
+        if (status != EXIT_OK) System.exit(status);
+    }
 
-        String sourceFile = args[0];
-        System.out.println("Çalışma dizini: " + new File(".").getAbsolutePath());
+    /** Derleme sürücüsünü çalıştırır ve çıkış kodunu döner. */
+    public static int run(String[] args) {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Hata: " + e.getMessage());
+            System.err.print(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.help) {
+            System.out.print(USAGE);
+            return EXIT_OK;
+        }
 
-        System.out.println("""
-                [Pass 1] Sembol tablosu ve Instruction listesi oluşturuluyor...
-                ---------------------------------------------------------------
-                """);
+        List<File> objFiles = new ArrayList<>();
+        if (!options.sources.isEmpty()) {
+            if (!assemble(options, objFiles)) return EXIT_BUILD_ERROR;
+        }
+        if (options.compileOnly) return EXIT_OK;
 
-        PassOne passOne = new PassOne();
-        passOne.processFile(sourceFile);
+        objFiles.addAll(options.objects);
+        return link(options, objFiles) ? EXIT_OK : EXIT_BUILD_ERROR;
+    }
 
-        List<Instruction> instructions = passOne.getInstructions();
-        SymbolTable symbolTable = passOne.getSymbolTable();
+    private static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-o" -> options.output = value(args, ++i, arg);
+                case "-f", "--format" -> {
+                    options.format = value(args, ++i, arg).toLowerCase();
+                    if (!List.of("titxt", "hex", "bin").contains(options.format)) {
+                        throw new IllegalArgumentException("Bilinmeyen çıktı biçimi: " + options.format);
+                    }
+                }
+                case "-m", "--map" -> options.mapFile = value(args, ++i, arg);
+                case "-c" -> options.compileOnly = true;
+                case "-j" -> {
+                    String n = value(args, ++i, arg);
+                    try {
+                        options.jobs = Integer.parseInt(n);
+                    } catch (NumberFormatException e) {
+                        options.jobs = 0;
+                    }
+                    if (options.jobs < 1) throw new IllegalArgumentException("Geçersiz -j değeri: " + n);
+                }
+                case "--obj-dir" -> options.objDir = new File(value(args, ++i, arg));
+                case "--listing" -> options.listing = true;
+                case "--no-peephole" -> options.peephole = false;
+                case "--force" -> options.force = true;
+                case "-q", "--quiet" -> options.quiet = true;
+                case "-h", "--help" -> options.help = true;
+                default -> {
+                    if (arg.startsWith("-")) throw new IllegalArgumentException("Bilinmeyen seçenek: " + arg);
+                    if (arg.toLowerCase().endsWith(".obj")) options.objects.add(new File(arg));
+                    else options.sources.add(new File(arg));
+                }
+            }
+        }
+        if (!options.help && options.sources.isEmpty() && options.objects.isEmpty()) {
+            throw new IllegalArgumentException("Girdi dosyası verilmedi.");
+        }
+        if (options.compileOnly && (options.output != null || options.mapFile != null)) {
+            throw new IllegalArgumentException("-c ile -o/--map birlikte kullanılamaz.");
+        }
+        return options;
+    }
 
-        System.out.println("[Pass 1 Sonucu] Sembol Tablosu:\n");
-        symbolTable.printSymbolTable();
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) throw new IllegalArgumentException(option + " bir değer bekliyor.");
+        return args[index];
+    }
 
-        System.out.println("""
-                [Pass 2] Makine kodu üretiliyor...
-                ----------------------------------
-                """);
+    /**
+     * Kaynakları paralel derler; başarılı her kaynağın .obj dosyasını objFiles'a ekler.
+     * Herhangi bir kaynak derlenemezse false döner.
+     */
+    private static boolean assemble(Options options, List<File> objFiles) {
+        File manifestFile = new File(options.objDir, BuildManifest.FILE_NAME);
+        File cacheFile = new File(options.objDir, "macro-cache.json");
+        BuildManifest manifest = BuildManifest.load(manifestFile);
+        // Listeleme için komut listesi gerektiğinden --listing de derlemeyi zorlar
+        if (options.force || options.listing) {
+            options.sources.forEach(manifest::forget);
+        }
+        // --force .mlib kütüphanelerini de yeniden ayrıştırır; diğer kütüphanelerin önbellek kayıtları korunur
+        MacroLibraryCache macroCache = MacroLibraryCache.load(cacheFile);
+        if (options.force) macroCache.reparseAll();
 
-        PassTwo passTwo = new PassTwo(symbolTable);
-        passTwo.assemble(instructions);
+        List<AssemblyJob.Result> results = BuildScheduler.build(options.sources, options.objDir, macroCache,
+                options.peephole, options.jobs, BuildProgress.NONE, manifest);
 
-        System.out.println("\n[Assembler tamamlandı.]");
+        boolean success = true;
+        for (AssemblyJob.Result result : results) {
+            String name = result.source().getPath();
+            if (!result.isSuccess()) {
+                System.err.println("HATA: " + name + ": " + result.error().getMessage());
+                success = false;
+                // Kodlama hatalarında komutlar mevcuttur; listeleme HATA satırlarıyla yine yazılır
+                if (options.listing && result.instructions() != null) writeListing(result, options);
+                continue;
+            }
+            objFiles.add(result.objFile());
+            if (result.upToDate()) {
+                if (!options.quiet) System.out.println("[" + name + " değişmemiş, derleme atlandı: " + result.objFile().getPath() + "]");
+                continue;
+            }
+            if (!options.quiet) {
+                System.out.println("[" + name + " derlendi: " + result.objFile().getPath() + "]");
+                System.out.println("[Pass 1 Sonucu] Sembol Tablosu:\n");
+                result.symbolTable().printSymbolTable();
+            }
+            if (options.listing && !writeListing(result, options)) success = false;
+        }
 
-        String baseName = new File(sourceFile).getName().replaceFirst("[.][^.]+$", "");
-        File objDir = new File("obj");
-        if (!objDir.exists()) objDir.mkdirs();
-        String objFile = new File(objDir, baseName + ".obj").getPath();
+        try {
+            if (manifest.isDirty()) manifest.save(manifestFile);
+            if (macroCache.isDirty()) macroCache.save(cacheFile);
+        } catch (IOException e) {
+            System.err.println("Uyarı: Derleme önbelleği yazılamadı: " + e.getMessage());
+        }
+        return success;
+    }
 
-        // Write object file
+    /** Derlenen kaynağın .lst dosyasını .obj'nin yanına yazar; yazılamazsa false döner. */
+    private static boolean writeListing(AssemblyJob.Result result, Options options) {
+        String lstFile = result.objFile().getPath().replaceFirst("[.]obj$", ".lst");
         try {
-            System.out.println("Object dosyası oluşturuluyor: " + new File(objFile).getAbsolutePath());
-            ObjectFileWriter.writeJson(objFile, instructions, symbolTable, passTwo.getRelocationTable());
-            System.out.println("[.obj dosyası oluşturuldu: " + objFile + "]");
-            
-            // Dosyanın gerçekten oluşturulup oluşturulmadığını kontrol et
-            File f = new File(objFile);
-            if (f.exists()) {
-                System.out.println("Dosya boyutu: " + f.length() + " bytes");
-            } else {
-                System.out.println("HATA: Dosya oluşturulamadı!");
-            }
+            ListingWriter.writeFile(result.instructions(), result.symbolTable(), lstFile);
+            if (!options.quiet) System.out.println("[.lst dosyası oluşturuldu: " + lstFile + "]");
+            return true;
         } catch (IOException e) {
-            System.err.println("Hata: .obj dosyası yazılamadı: " + e.getMessage());
-            e.printStackTrace(); // Stack trace'i göster
-            return;
+            System.err.println("HATA: " + lstFile + " yazılamadı: " + e.getMessage());
+            return false;
         }
+    }
 
-        System.out.println("""
-                [Linker] Program bağlanıyor...
-                ----------------------------
-                """);
+    /** Verilen .obj dosyalarını linkler ve istenen biçimde çıktıyı (ve istenirse haritayı) yazar. */
+    private static boolean link(Options options, List<File> objFiles) {
+        if (!options.quiet) {
+            System.out.println("""
+                    [Linker] Program bağlanıyor...
+                    ----------------------------
+                    """);
+        }
+        String output = options.output != null ? options.output : switch (options.format) {
+            case "hex" -> "linked.hex";
+            case "bin" -> "linked.bin";
+            default -> "linked.txt";
+        };
 
         try {
-            // 1. obj/ klasöründen tüm .obj dosyalarını oku
-            File[] objFiles = objDir.listFiles((dir, name) -> name.endsWith(".obj"));
-            if (objFiles == null || objFiles.length == 0) {
-                System.err.println("HATA: obj/ klasöründe .obj dosyası bulunamadı!");
-                return;
-            }
-
             List<String> paths = new ArrayList<>();
             for (File f : objFiles) {
-                System.out.println("[Linker] .obj dosyası bulundu: " + f.getName());
+                if (!options.quiet) System.out.println("[Linker] .obj dosyası: " + f.getPath());
                 paths.add(f.getPath());
             }
 
-            // 2. Hepsini birleştirerek linker'a ver
             ObjectFileReader.ObjData data = ObjectFileReader.readMultiple(paths);
             Linker linker = new Linker(data.instructions, data.symbolTable, data.relocations);
             linker.link();
 
-            System.out.println("\n[Linkleme tamamlandı.]");
+            if (!options.quiet) {
+                System.out.println("\n[Linkleme tamamlandı.]");
 
-            for (Map.Entry<String, MemorySegment> entry : linker.getSegments().entrySet()) {
-                System.out.println("\n[" + entry.getKey() + "] Segment İçeriği:");
-                System.out.println("--------------------------");
-                System.out.println(entry.getValue().toHexDump());
+                // Segment dökümleri uzun olabilir; konsol tamponlu yazar ve sadece son satırları tutar
+                LogConsole console = new LogConsole().mirrorTo(System.out);
+                PrintStream log = console.printStream();
+                for (Map.Entry<String, MemorySegment> entry : linker.getSegments().entrySet()) {
+                    log.println("\n[" + entry.getKey() + "] Segment İçeriği:");
+                    log.println("--------------------------");
+                    log.println(entry.getValue().toHexDump());
+                }
+                log.flush();
             }
 
-            ExecutableWriter.writeTiTxt(linker.getSegments(), "linked.txt");
+            switch (options.format) {
+                case "hex" -> ExecutableWriter.writeIntelHex(linker.getSegments(), output);
+                case "bin" -> ExecutableWriter.writeBinary(linker.getSegments(), output);
+                default -> ExecutableWriter.writeTiTxt(linker.getSegments(), output);
+            }
+            if (!options.quiet) System.out.println("[Çıktı yazıldı: " + output + "]");
 
-        } catch (IOException e) {
+            if (options.mapFile != null) {
+                MapFileWriter.writeMapFile(options.mapFile, output, linker);
+                if (!options.quiet) System.out.println("[Harita dosyası yazıldı: " + options.mapFile + "]");
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
             System.err.println("Hata: .obj dosyası okunamadı veya linklenemedi: " + e.getMessage());
-            e.printStackTrace(); // Stack trace'i göster
-            return;
+            if (!options.quiet) e.printStackTrace(); // Stack trace'i göster
+            return false;
         }
     }
 
@@ -49,11 +49,8 @@ public class MapFileWriter {
             writer.write("address     name\n");
             writer.write("----------  --------------------\n");
 
-            List<SymbolTable.SymbolEntry> sortedSymbols = new ArrayList<>(linker.getSymbolTable().getAllSymbols().values());
-            sortedSymbols.sort(Comparator.comparingInt(SymbolTable.SymbolEntry::getAddress));
-
             int globalSymbolCount = 0;
-            for (SymbolTable.SymbolEntry symbol : sortedSymbols) {
+            for (SymbolTable.SymbolEntry symbol : linker.getSymbolTable().getSymbolsByAddress()) {
                 if (symbol.getBinding() == SymbolTable.SymbolEntry.Binding.DEF) {
                     writer.write(String.format("0x%08X  %s\n", symbol.getAddress(), symbol.getLabel()));
                     globalSymbolCount++;
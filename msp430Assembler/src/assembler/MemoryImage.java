@@ -0,0 +1,121 @@
+package assembler;
+
+import java.util.Arrays;
+
+/**
+ * Seyrek, sayfalı bellek görüntüsü. Adres alanı MSP430X'in 20 bitlik alanıdır (1 MB); bellek
+ * PAGE_SIZE byte'lık sayfalar halinde sadece ilk yazıldığında ayrılır. Hiç yazılmamış adresler
+ * silinmiş flash gibi 0xFF okunur.
+ *
+ * Linker segmentleri doğrudan bu görüntüye yazar; Loader, ExecutableWriter ve bellek görünümü aynı
+ * nesneyi okur. Tam görüntü boyutunda bir dizi ayrılmaz, kopyalanmaz veya doldurulmaz.
+ */
+public class MemoryImage {
+
+    public static final int PAGE_SIZE = 512;
+    public static final int ADDRESS_SPACE = 1 << 20; // MSP430X: 20 bit
+    public static final byte ERASED = (byte) 0xFF;   // Yazılmamış (silinmiş flash) bellek değeri
+
+    private static final int PAGE_SHIFT = Integer.numberOfTrailingZeros(PAGE_SIZE);
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final byte[][] pages = new byte[ADDRESS_SPACE / PAGE_SIZE][];
+    private int pageCount = 0;
+    private int highestPage = -1;
+
+    public byte readByte(int address) {
+        checkRange(address, 1);
+        byte[] page = pages[address >>> PAGE_SHIFT];
+        return page != null ? page[address & PAGE_MASK] : ERASED;
+    }
+
+    public int readWord(int address) {
+        return (readByte(address) & 0xFF) | ((readByte(address + 1) & 0xFF) << 8);
+    }
+
+    public void writeByte(int address, byte value) {
+        checkRange(address, 1);
+        page(address >>> PAGE_SHIFT)[address & PAGE_MASK] = value;
+    }
+
+    public void writeWord(int address, int value) {
+        writeByte(address, (byte) value);
+        writeByte(address + 1, (byte) (value >> 8));
+    }
+
+    /** data[from, from + count) aralığını address'ten itibaren yazar (sayfa sınırlarında bölerek). */
+    public void write(int address, byte[] data, int from, int count) {
+        checkRange(address, count);
+        while (count > 0) {
+            int inPage = address & PAGE_MASK;
+            int n = Math.min(count, PAGE_SIZE - inPage);
+            System.arraycopy(data, from, page(address >>> PAGE_SHIFT), inPage, n);
+            address += n;
+            from += n;
+            count -= n;
+        }
+    }
+
+    /** [address, address + count) aralığını value ile doldurur. */
+    public void fill(int address, int count, byte value) {
+        checkRange(address, count);
+        while (count > 0) {
+            int inPage = address & PAGE_MASK;
+            int n = Math.min(count, PAGE_SIZE - inPage);
+            Arrays.fill(page(address >>> PAGE_SHIFT), inPage, inPage + n, value);
+            address += n;
+            count -= n;
+        }
+    }
+
+    /** [address, address + count) aralığını dest'e kopyalar; ayrılmamış sayfalar ERASED okunur. */
+    public void read(int address, byte[] dest, int offset, int count) {
+        checkRange(address, count);
+        while (count > 0) {
+            int inPage = address & PAGE_MASK;
+            int n = Math.min(count, PAGE_SIZE - inPage);
+            byte[] page = pages[address >>> PAGE_SHIFT];
+            if (page != null) {
+                System.arraycopy(page, inPage, dest, offset, n);
+            } else {
+                Arrays.fill(dest, offset, offset + n, ERASED);
+            }
+            address += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    /** Adresin bulunduğu sayfa ayrılmış (en az bir kez yazılmış) mı? */
+    public boolean isAllocated(int address) {
+        return address >= 0 && address < ADDRESS_SPACE && pages[address >>> PAGE_SHIFT] != null;
+    }
+
+    /** Ayrılmış sayfa sayısı */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /** Ayrılmış en yüksek sayfanın bittiği adres (hiç sayfa yoksa 0). */
+    public int getAllocatedLimit() {
+        return (highestPage + 1) << PAGE_SHIFT;
+    }
+
+    private byte[] page(int index) {
+        byte[] page = pages[index];
+        if (page == null) {
+            page = new byte[PAGE_SIZE];
+            Arrays.fill(page, ERASED);
+            pages[index] = page;
+            pageCount++;
+            highestPage = Math.max(highestPage, index);
+        }
+        return page;
+    }
+
+    private static void checkRange(int address, int count) {
+        if (address < 0 || count < 0 || address > ADDRESS_SPACE - count) {
+            throw new IndexOutOfBoundsException(String.format("Bellek alanı dışında erişim: 0x%05X (+%d)", address, count));
+        }
+    }
+}
@@ -1,25 +1,32 @@
 package assembler;
 
-import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Bellek üzerinde bir segmenti (örneğin .text, .data, .bss) temsil eder.
+ * Segmentin kendi dizisi yoktur; içerik paylaşılan bir MemoryImage'ın [origin, origin + length)
+ * penceresidir. Offset'ler segment başına göredir.
  */
 public class MemorySegment {
 
-    private final String name;     // Segment adı (örneğin .text)
-    private final int origin;      // Başlangıç adresi
-    private final int length;      // Uzunluk (byte cinsinden)
-    private final byte[] content;  // Segmentin verisi (bellek içeriği)
+    private final String name;        // Segment adı (örneğin .text)
+    private final int origin;         // Başlangıç adresi
+    private final int length;         // Uzunluk (byte cinsinden)
+    private final MemoryImage image;  // Segmentin verisinin bulunduğu bellek görüntüsü
 
+    /** Kendi bellek görüntüsüne sahip bağımsız segment */
     public MemorySegment(String name, int origin, int length) {
+        this(name, origin, length, new MemoryImage());
+    }
+
+    /** Paylaşılan görüntü üzerinde segment; segmentin alanı başlangıçta 0 ile doldurulur. */
+    public MemorySegment(String name, int origin, int length, MemoryImage image) {
         this.name = name;
         this.origin = origin;
         this.length = length;
-        this.content = new byte[length];
-        Arrays.fill(this.content, (byte) 0); // Başlangıçta tüm alan 0
+        this.image = image;
+        image.fill(origin, length, (byte) 0); // Başlangıçta tüm alan 0
     }
 
     public String getName() {
@@ -34,7 +41,14 @@ public class MemorySegment {
         return length;
     }
 
+    public MemoryImage getImage() {
+        return image;
+    }
+
+    /** Segment içeriğinin bir kopyası; toplu okuma için getImage() tercih edilmeli. */
     public byte[] getContent() {
+        byte[] content = new byte[length];
+        image.read(origin, content, 0, length);
         return content;
     }
 
@@ -46,50 +60,60 @@ public class MemorySegment {
         if (offset < 0 || offset >= length) {
             throw new IndexOutOfBoundsException("Segment sınırlarının dışında yazma: " + offset);
         }
-        content[offset] = value;
+        image.writeByte(origin + offset, value);
     }
 
     public void writeWord(int offset, int value) {
         if (offset < 0 || offset + 1 >= length) {
             throw new IndexOutOfBoundsException("Segment sınırlarının dışında word yazma: " + offset);
         }
-        content[offset]     = (byte) (value & 0xFF);
-        content[offset + 1] = (byte) ((value >> 8) & 0xFF);
+        image.writeWord(origin + offset, value);
+    }
+
+    /** data[from, from + count) aralığını offset'ten itibaren toplu yazar. */
+    public void writeBytes(int offset, byte[] data, int from, int count) {
+        if (count == 0) return;
+        if (offset < 0 || offset + count > length) {
+            throw new IndexOutOfBoundsException("Segment sınırlarının dışında yazma: " + offset + " (+" + count + ")");
+        }
+        image.write(origin + offset, data, from, count);
     }
 
     public byte readByte(int offset) {
         if (offset < 0 || offset >= length) {
             throw new IndexOutOfBoundsException("Segment sınırlarının dışında okuma: " + offset);
         }
-        return content[offset];
+        return image.readByte(origin + offset);
     }
 
     public int readWord(int offset) {
         if (offset < 0 || offset + 1 >= length) {
             throw new IndexOutOfBoundsException("Segment sınırlarının dışında word okuma: " + offset);
         }
-        return ((content[offset + 1] & 0xFF) << 8) | (content[offset] & 0xFF);
+        return image.readWord(origin + offset);
     }
 
     @Override
     public String toString() {
-        return String.format("MemorySegment{origin=0x%04X, size=%d}", origin, content.length);
+        return String.format("MemorySegment{origin=0x%04X, size=%d}", origin, length);
     }
 
     public byte[] getBytes() {
-        return content;
+        return getContent();
     }
 
     public String toHexDump() {
         StringBuilder sb = new StringBuilder();
+        byte[] content = new byte[16];
         for (int i = 0; i < length; i += 16) {
+            image.read(origin + i, content, 0, Math.min(16, length - i));
             // Adres bölümü
             sb.append(String.format("0x%04X: ", origin + i));
 
             // Hex bölümü
             for (int j = 0; j < 16; j++) {
                 if (i + j < length) {
-                    sb.append(String.format("%02X ", content[i + j]));
+                    sb.append(String.format("%02X ", content[j]));
                 } else {
                     sb.append("   "); // 3 boşluk
                 }
@@ -99,7 +123,7 @@ public class MemorySegment {
             // ASCII bölümü
             for (int j = 0; j < 16; j++) {
                 if (i + j < length) {
-                    char c = (char) content[i + j];
+                    char c = (char) content[j];
                     if (c >= 32 && c < 127) {
                         sb.append(c);
                     } else {
@@ -115,12 +139,12 @@ public class MemorySegment {
     public List<int[]> getNonZeroRanges(int chunkSize) {
         List<int[]> ranges = new ArrayList<>();
         int i = 0;
-        while (i < content.length) {
+        while (i < length) {
             // Veri içeren alanı bul
-            while (i < content.length && content[i] == 0) i++;
+            while (i < length && readByte(i) == 0) i++;
             int start = i;
-            while (i < content.length && (i - start) < chunkSize) {
-                if (content[i] != 0) {
+            while (i < length && (i - start) < chunkSize) {
+                if (readByte(i) != 0) {
                     i++;
                 } else {
                     // Eğer 0 tekrar başlarsa, aralığı bitir
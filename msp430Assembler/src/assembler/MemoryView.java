@@ -46,6 +46,9 @@ public class MemoryView extends JPanel {
             memoryTable.getColumnModel().getColumn(i).setCellRenderer(centerRenderer);
         }
 
+        // Sembol sütunu (satırdaki veya satırdan önceki en yakın etiket)
+        memoryTable.getColumnModel().getColumn(17).setPreferredWidth(140);
+
         JScrollPane scrollPane = new JScrollPane(memoryTable);
         add(scrollPane, BorderLayout.CENTER);
 
@@ -93,32 +96,44 @@ public class MemoryView extends JPanel {
         }
     }
 
-    public void loadMemory(byte[] memoryImage) {
-        tableModel.setMemoryImage(memoryImage);
+    public void loadMemory(MemoryImage memoryImage) {
+        loadMemory(memoryImage, null);
+    }
+
+    /**
+     * Bellek görüntüsünü yükler (kopyalamadan; tablo hücreleri görüntüden okunur).
+     * symbols verilirse her satırın yanında en yakın etiket gösterilir.
+     */
+    public void loadMemory(MemoryImage memoryImage, SymbolTable symbols) {
+        tableModel.setMemoryImage(memoryImage, symbols);
         // Go to top after loading new data
         SwingUtilities.invokeLater(() -> memoryTable.scrollRectToVisible(memoryTable.getCellRect(0, 0, true)));
     }
 }
 
 class MemoryTableModel extends AbstractTableModel {
-    private byte[] memoryImage = new byte[0];
+    private MemoryImage memoryImage;
+    private int memorySize = 0; // Gösterilen adres aralığı: 64 KB, 64 KB üzerinde veri varsa 20 bitlik alanın tamamı
+    private SymbolTable symbols;
     private final String[] columnNames = {
             "Address", "00", "01", "02", "03", "04", "05", "06", "07",
-            "08", "09", "0A", "0B", "0C", "0D", "0E", "0F"
+            "08", "09", "0A", "0B", "0C", "0D", "0E", "0F", "Symbol"
     };
 
     public int getMemorySize() {
-        return memoryImage.length;
+        return memorySize;
     }
 
-    public void setMemoryImage(byte[] memoryImage) {
+    public void setMemoryImage(MemoryImage memoryImage, SymbolTable symbols) {
         this.memoryImage = memoryImage;
+        this.memorySize = memoryImage.getAllocatedLimit() > 0x10000 ? MemoryImage.ADDRESS_SPACE : 0x10000;
+        this.symbols = symbols;
         fireTableDataChanged();
     }
 
     @Override
     public int getRowCount() {
-        return (memoryImage.length + 15) / 16; // Round up
+        return (memorySize + 15) / 16; // Round up
     }
 
     @Override
@@ -136,18 +151,26 @@ class MemoryTableModel extends AbstractTableModel {
         int address = rowIndex * 16;
 
         if (columnIndex == 0) { // Address column
-            return String.format("0x%04X", address);
+            return String.format(memorySize > 0x10000 ? "0x%05X" : "0x%04X", address);
         }
 
         if (columnIndex >= 1 && columnIndex <= 16) { // Hex value columns
             int byteIndex = address + (columnIndex - 1);
-            if (byteIndex < memoryImage.length) {
-                return String.format("%02X", memoryImage[byteIndex]);
+            if (byteIndex < memorySize) {
+                return String.format("%02X", memoryImage.readByte(byteIndex));
             } else {
                 return "";
             }
         }
 
+        if (columnIndex == 17 && symbols != null) { // Symbol column
+            // Satırın son byte'ına kadar olan en yakın sembol; ters indeksten ikili arama ile bulunur
+            SymbolTable.SymbolEntry symbol = symbols.findNearestAtOrBefore(address + 15);
+            if (symbol == null) return "";
+            int offset = address - symbol.getAddress();
+            return offset <= 0 ? symbol.getLabel() : String.format("%s+0x%X", symbol.getLabel(), offset);
+        }
+
         return "";
     }
 } 
\ No newline at end of file
@@ -6,15 +6,21 @@ import org.json.*;
 
 public class ObjectFileReader {
     public static class ObjData {
-      public final List<Instruction> instructions;
+      public final InstructionStore instructions; // Sütun tabanlı; satır başına Instruction nesnesi oluşmaz
       public final SymbolTable symbolTable;
       public final List<RelocationEntry> relocations;
-      public ObjData(List<Instruction> i, SymbolTable s, List<RelocationEntry> r) {
+      public ObjData(InstructionStore i, SymbolTable s, List<RelocationEntry> r) {
         instructions=i; symbolTable=s; relocations=r;
       }
     }
 
     public static ObjData readJson(String filename) throws IOException {
+        InstructionStore store = new InstructionStore();
+        return readJson(filename, store, store.getFiles().idOf(new File(filename).getName()));
+    }
+
+    /** .obj dosyasını okur; komut satırlarını verilen depoya fileId kimliğiyle ekler. */
+    private static ObjData readJson(String filename, InstructionStore store, int fileId) throws IOException {
         String txt;
         try (BufferedReader r = new BufferedReader(new FileReader(filename))) {
             StringBuilder sb = new StringBuilder();
@@ -38,23 +44,23 @@ public class ObjectFileReader {
             String section = o.has("section") && !o.getString("section").equals("null") ? o.getString("section") : null;
 
             if (symTab.contains(name)) { // Sembol zaten varsa (muhtemelen REF)
-                 SymbolTable.SymbolEntry existing = symTab.getAllSymbols().get(name);
+                 SymbolTable.SymbolEntry existing = symTab.edit(name);
                  existing.setAddress(addr);
                  existing.setBinding(b);
                  existing.setSection(section);
             } else {
                  symTab.define(name, addr, b);
-                 symTab.getAllSymbols().get(name).setSection(section);
+                 symTab.edit(name).setSection(section);
             }
 
             // Backwards compatibility: if "defined" field exists, read it.
             if (o.has("defined") && o.getBoolean("defined")) {
-                symTab.getAllSymbols().get(name).setDefined(true);
+                symTab.edit(name).setDefined(true);
             }
         }
 
         // 2) Instructions
-        List<Instruction> insts = new ArrayList<>();
+        IdRegistry sections = store.getSections();
         JSONArray instArr = root.getJSONArray("instructions");
         for (int i=0; i<instArr.length(); i++) {
             JSONObject o = instArr.getJSONObject(i);
@@ -64,31 +70,23 @@ public class ObjectFileReader {
             int address    = (int)Long.parseLong(addrStr, 16);
             int code       = (int)Long.parseLong(codeStr, 16);
             String raw     = o.getString("rawLine");
-            Instruction inst = new Instruction(null, null, null, address, 0);
-            inst.setSection(section);
-            inst.setMachineCode(code);
-            inst.setRawLine(raw);
+            store.add(address, code, 0, sections.idOf(section), fileId, raw);
             // extraWords oku
             if (o.has("extraWords")) {
                 JSONArray extraArr = o.getJSONArray("extraWords");
-                List<Integer> extraWords = new ArrayList<>();
                 for (int j = 0; j < extraArr.length(); j++) {
                     String ew = extraArr.getString(j).replace("0x", "");
-                    extraWords.add((int)Long.parseLong(ew, 16));
+                    store.addWord((int)Long.parseLong(ew, 16));
                 }
-                inst.setExtraWords(extraWords);
             }
             // extraBytes oku
             if (o.has("extraBytes")) {
                 JSONArray extraArr = o.getJSONArray("extraBytes");
-                List<Integer> extraBytes = new ArrayList<>();
                 for (int j = 0; j < extraArr.length(); j++) {
                     String eb = extraArr.getString(j).replace("0x", "");
-                    extraBytes.add(Integer.parseInt(eb, 16));
+                    store.addByte(Integer.parseInt(eb, 16));
                 }
-                inst.setExtraBytes(extraBytes);
             }
-            insts.add(inst);
         }
 
         // 3) Relocations
@@ -105,32 +103,28 @@ public class ObjectFileReader {
             if (o.has("type")) {
                 type = RelocationEntry.RelocationType.valueOf(o.getString("type"));
             }
-            rels.add(new RelocationEntry(o.getString("symbol"), address, type));
+            RelocationEntry rel = new RelocationEntry(o.getString("symbol"), address, type);
+            rel.setSourceFileId(fileId);
+            rels.add(rel);
         }
 
-        return new ObjData(insts, symTab, rels);
+        return new ObjData(store, symTab, rels);
     }
 
     public static ObjData readMultiple(List<String> filenames) throws IOException {
-        List<Instruction> allInstructions = new ArrayList<>();
+        // Tüm dosyaların komutları tek bir sütun tabanlı depoya, dosya kimlikleriyle okunur
+        InstructionStore allInstructions = new InstructionStore();
         SymbolTable combinedSymbolTable = new SymbolTable();
         List<RelocationEntry> allRelocations = new ArrayList<>();
 
         for (String file : filenames) {
-            ObjData obj = readJson(file);
-            String sourceObjName = new File(file).getName();
+            int fileId = allInstructions.getFiles().idOf(new File(file).getName());
+            ObjData obj = readJson(file, allInstructions, fileId);
 
-            // Her instruction'a kaynak dosya adını ekle
-            for(Instruction inst : obj.instructions) {
-                inst.setSourceFile(sourceObjName);
+            // Her sembole de kaynak dosya kimliğini ekle
+            for(String label : obj.symbolTable.getAllSymbols().keySet()) {
+                obj.symbolTable.edit(label).setSourceFileId(fileId);
             }
-            // Her sembole de kaynak dosya adını ekle
-            for(SymbolTable.SymbolEntry sym : obj.symbolTable.getAllSymbols().values()) {
-                sym.setSourceFile(sourceObjName);
-            }
-
-            // Instruction'ları ekle
-            allInstructions.addAll(obj.instructions);
 
             // Sembolleri akıllıca birleştir
             for (Map.Entry<String, SymbolTable.SymbolEntry> entry : obj.symbolTable.getAllSymbols().entrySet()) {
@@ -138,7 +132,7 @@ public class ObjectFileReader {
                 SymbolTable.SymbolEntry newEntry = entry.getValue();
 
                     if (combinedSymbolTable.contains(label)) {
-                    SymbolTable.SymbolEntry existingEntry = combinedSymbolTable.getAllSymbols().get(label);
+                    SymbolTable.SymbolEntry existingEntry = combinedSymbolTable.edit(label);
                     
                     if (newEntry.isDefined() && existingEntry.isDefined()) {
                         if (newEntry.getBinding() == SymbolTable.SymbolEntry.Binding.DEF && existingEntry.getBinding() == SymbolTable.SymbolEntry.Binding.DEF) {
@@ -149,15 +143,15 @@ public class ObjectFileReader {
                     if (newEntry.isDefined() && !existingEntry.isDefined()) {
                         existingEntry.setAddress(newEntry.getAddress());
                         existingEntry.setBinding(newEntry.getBinding());
-                        existingEntry.setSection(newEntry.getSection());
-                        existingEntry.setSourceFile(newEntry.getSourceFile());
+                        existingEntry.setSectionId(newEntry.getSectionId());
+                        existingEntry.setSourceFileId(newEntry.getSourceFileId());
                         existingEntry.setDefined(true);
                     }
                 } else {
                     combinedSymbolTable.define(label, newEntry.getAddress(), newEntry.getBinding());
-                    SymbolTable.SymbolEntry definedEntry = combinedSymbolTable.getAllSymbols().get(label);
-                    definedEntry.setSection(newEntry.getSection());
-                    definedEntry.setSourceFile(newEntry.getSourceFile());
+                    SymbolTable.SymbolEntry definedEntry = combinedSymbolTable.edit(label);
+                    definedEntry.setSectionId(newEntry.getSectionId());
+                    definedEntry.setSourceFileId(newEntry.getSourceFileId());
                     if (newEntry.isDefined()) {
                         definedEntry.setDefined(true);
                     }
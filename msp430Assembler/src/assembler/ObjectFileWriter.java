@@ -10,26 +10,33 @@ public class ObjectFileWriter {
                                  List<Instruction> instructions,
                                  SymbolTable symbolTable,
                                  List<RelocationEntry> relocations) throws IOException {
+        writeJson(filename, InstructionStore.of(instructions), symbolTable, relocations);
+    }
+
+    /** Sütun tabanlı depodaki satırları, satır başına nesne oluşturmadan yazar. */
+    public static void writeJson(String filename,
+                                 InstructionStore instructions,
+                                 SymbolTable symbolTable,
+                                 List<RelocationEntry> relocations) throws IOException {
         try (BufferedWriter w = new BufferedWriter(new FileWriter(filename))) {
             w.write("{\n");
 
             // 1) Instructions
             w.write("  \"instructions\": [\n");
             for (int i = 0; i < instructions.size(); i++) {
-                Instruction inst = instructions.get(i);
-                Integer machineCode = inst.getMachineCode();
+                int machineCode = instructions.machineCode(i);
 
                 // For directives that have no machine code, use 0x0000 as a placeholder in the JSON
-                int codeToWrite = (machineCode != null) ? machineCode : 0;
+                int codeToWrite = (machineCode != InstructionStore.NO_CODE) ? machineCode : 0;
 
                 w.write(String.format(
                         "    {\"section\":\"%s\",\"address\":\"0x%04X\",\"machineCode\":\"0x%04X\",\"extraWords\":%s,\"extraBytes\":%s,\"rawLine\":\"%s\"}%s\n",
-                        inst.getSection(),
-                        inst.getAddress(),
+                        instructions.section(i),
+                        instructions.address(i),
                         codeToWrite,
-                        extraWordsToJson(inst.getExtraWords()),
-                        extraBytesToJson(inst.getExtraBytes()),
-                        inst.getRawLine().replace("\"", "\\\""),
+                        extraWordsToJson(instructions, i),
+                        extraBytesToJson(instructions, i),
+                        instructions.rawLine(i).replace("\"", "\\\""),
                         i + 1 < instructions.size() ? "," : ""
                 ));
             }
@@ -64,23 +71,25 @@ public class ObjectFileWriter {
         }
     }
 
-    private static String extraWordsToJson(List<Integer> extraWords) {
+    private static String extraWordsToJson(InstructionStore store, int row) {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (int i = 0; i < extraWords.size(); i++) {
-            sb.append(String.format("\"0x%04X\"", extraWords.get(i)));
-            if (i + 1 < extraWords.size()) sb.append(",");
+        int count = store.wordCount(row);
+        for (int i = 0; i < count; i++) {
+            sb.append(String.format("\"0x%04X\"", store.word(row, i)));
+            if (i + 1 < count) sb.append(",");
         }
         sb.append("]");
         return sb.toString();
     }
 
-    private static String extraBytesToJson(List<Integer> extraBytes) {
+    private static String extraBytesToJson(InstructionStore store, int row) {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (int i = 0; i < extraBytes.size(); i++) {
-            sb.append(String.format("\"0x%02X\"", extraBytes.get(i)));
-            if (i + 1 < extraBytes.size()) sb.append(",");
+        int count = store.byteCount(row);
+        for (int i = 0; i < count; i++) {
+            sb.append(String.format("\"0x%02X\"", store.byteAt(row, i)));
+            if (i + 1 < count) sb.append(",");
                         }
         sb.append("]");
         return sb.toString();
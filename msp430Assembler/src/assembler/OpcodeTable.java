@@ -1,90 +1,288 @@
 package assembler;
 
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class OpcodeTable {
+/**
+ * JVM başına bir kez kurulan, değiştirilemez komut tanımlayıcı tablosu.
+ * Her komut için format, önceden kaydırılmış temel opcode, .B eki izni ve
+ * (sözde komutlar için) açılımı tutulur. Arama, mnemonic karakterlerinden hesaplanan
+ * bir anahtar üzerinden açık adresli bir tabloda yapılır; toUpperCase veya String üretilmez.
+ */
+public final class OpcodeTable {
 
-    /** Komut ve opcode değerlerini saklayan hashmapp */
-    private final HashMap<String, String> opcodeMap;
+    /** Sözde (emulated) komutların gerçek komuta açılımı */
+    public enum Pseudo {
+        NONE(null),
+        BRANCH("MOV"),     // JMP/BR x  -> MOV #x,R0
+        CLEAR("MOV"),      // CLR x     -> MOV #0,x
+        INCREMENT("ADD"),  // INC x     -> ADD #1,x
+        DECREMENT("SUB"),  // DEC x     -> SUB #1,x
+        TEST("CMP"),       // TST x     -> CMP x,x
+        RETURN("MOV");     // RET       -> MOV @SP+,PC
 
-    public OpcodeTable() {
-        opcodeMap = new HashMap<>();
-        initializeOpcodes();
+        private final String target;
+
+        Pseudo(String target) {
+            this.target = target;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        /** Operand metnini gerçek komutun operandlarına dönüştürür. */
+        public String expandOperands(String operands) {
+            String op = operands.trim();
+            switch (this) {
+                case BRANCH:    return "#" + op + ",R0";
+                case CLEAR:     return "#0," + op;
+                case INCREMENT:
+                case DECREMENT: return "#1," + op;
+                case TEST:      return op + "," + op;
+                case RETURN:    return "@SP+,PC";
+                default:        return operands;
+            }
+        }
+    }
+
+    /** Komutun çevrim (cycle) sayısının hangi tablodan hesaplanacağı */
+    public enum Timing {
+        DOUBLE_OPERAND,  // Format 1: kaynak ve hedef moduna göre
+        SINGLE_OPERAND,  // RRC, RRA, SWPB, SXT
+        PUSH,
+        CALL,
+        RETI,            // 5 çevrim
+        JUMP,            // Format 3: her zaman 2 çevrim
+        NOP              // MOV #0,R3: 1 çevrim
+    }
+
+    /**
+     * Bir komutun tanımı.
+     * @param opcode Formatına göre yerine kaydırılmış temel opcode (Format 1: <<12, Format 2: <<7, Format 3: <<10).
+     * @param operandCount Beklenen operand sayısı (RETI ve NOP için 0).
+     * @param byteAllowed .B ekinin kullanılabilir olup olmadığı.
+     * @param forcedBw Sözde komutun kendi adında gelen B/W bilgisi (CLRB -> 1), yoksa -1.
+     * @param timing Çevrim sayısı tablosu.
+     */
+    public record Descriptor(String mnemonic, int format, int opcode, int operandCount,
+                             boolean byteAllowed, Pseudo pseudo, int forcedBw, Timing timing) {
+        public boolean isPseudo() {
+            return pseudo != Pseudo.NONE;
+        }
     }
 
-    private void initializeOpcodes() {
+    // MSP430 (CPU) çevrim tabloları. Adresleme sınıfları:
+    // 0 Rn (sabit üreteci dahil), 1 @Rn, 2 @Rn+, 3 #N, 4 x(Rn), 5 EDE (sembolik), 6 &EDE (mutlak)
+    private static final int[][] DOUBLE_OPERAND_CYCLES = { // [kaynak][hedef: Rm, PC, bellek]
+            {1, 2, 4}, {2, 2, 5}, {2, 3, 5}, {2, 3, 5}, {3, 3, 6}, {3, 3, 6}, {3, 3, 6}};
+    private static final int[] SINGLE_OPERAND_CYCLES = {1, 3, 3, 0, 4, 4, 4}; // #N geçersiz
+    private static final int[] PUSH_CYCLES = {3, 4, 4, 4, 5, 5, 5};
+    private static final int[] CALL_CYCLES = {4, 4, 5, 5, 5, 5, 5};
+
+    private static final int TABLE_SIZE = 128; // 2'nin kuvveti, komut sayısının en az iki katı
+    private static final int[] keys = new int[TABLE_SIZE];
+    private static final Descriptor[] descriptors = new Descriptor[TABLE_SIZE];
+    private static final Map<String, Descriptor> allDescriptors = new LinkedHashMap<>();
+
+    static {
         // Format 1 (Double Operand)
-        opcodeMap.put("MOV", "0100");
-        opcodeMap.put("ADD", "0101");
-        opcodeMap.put("ADDC", "0110");
-        opcodeMap.put("SUBC", "0111");
-        opcodeMap.put("SUB", "1000");
-        opcodeMap.put("CMP", "1001");
-        opcodeMap.put("DADD", "1010");
-        opcodeMap.put("BIT", "1011");
-        opcodeMap.put("BIC", "1100");
-        opcodeMap.put("BIS", "1101");
-        opcodeMap.put("XOR", "1110");
-        opcodeMap.put("AND", "1111");
+        format1("MOV", 0b0100);
+        format1("ADD", 0b0101);
+        format1("ADDC", 0b0110);
+        format1("SUBC", 0b0111);
+        format1("SUB", 0b1000);
+        format1("CMP", 0b1001);
+        format1("DADD", 0b1010);
+        format1("BIT", 0b1011);
+        format1("BIC", 0b1100);
+        format1("BIS", 0b1101);
+        format1("XOR", 0b1110);
+        format1("AND", 0b1111);
 
         // Format 2 (Single Operand)
-        opcodeMap.put("RRC",  "000100000");
-        opcodeMap.put("SWPB", "000100001");
-        opcodeMap.put("RRA",  "000100010");
-        opcodeMap.put("SXT",  "000100011");
-        opcodeMap.put("PUSH", "000100100");
-        opcodeMap.put("CALL", "000100101");
-        opcodeMap.put("RETI", "000100110");
-
+        format2("RRC",  0b000100000, true, Timing.SINGLE_OPERAND);
+        format2("SWPB", 0b000100001, false, Timing.SINGLE_OPERAND);
+        format2("RRA",  0b000100010, true, Timing.SINGLE_OPERAND);
+        format2("SXT",  0b000100011, false, Timing.SINGLE_OPERAND);
+        format2("PUSH", 0b000100100, true, Timing.PUSH);
+        format2("CALL", 0b000100101, false, Timing.CALL);
+        add(new Descriptor("RETI", 2, 0b000100110 << 7, 0, false, Pseudo.NONE, -1, Timing.RETI));
 
         // Format 3 (Jumps)
-        opcodeMap.put("JNE", "001000"); opcodeMap.put("JNZ", "001000");
-        opcodeMap.put("JEQ", "001001"); opcodeMap.put("JZ", "001001");
-        opcodeMap.put("JNC", "001010");
-        opcodeMap.put("JC", "001011");
-        opcodeMap.put("JN", "001100");
-        opcodeMap.put("JGE", "001101");
-        opcodeMap.put("JL", "001110");
-        opcodeMap.put("JMP", "001111"); opcodeMap.put("BR",  "001111");
+        format3("JNE", 0b001000); format3("JNZ", 0b001000);
+        format3("JEQ", 0b001001); format3("JZ", 0b001001);
+        format3("JNC", 0b001010);
+        format3("JC", 0b001011);
+        format3("JN", 0b001100);
+        format3("JGE", 0b001101);
+        format3("JL", 0b001110);
+
+        // Ozel Durumlar (emulated komutlar)
+        add(new Descriptor("NOP", 0, 0x4303, 0, false, Pseudo.NONE, -1, Timing.NOP)); // MOV #0, R3
+        pseudo("JMP", 3, 0b001111 << 10, Pseudo.BRANCH, false, -1);
+        pseudo("BR", 3, 0b001111 << 10, Pseudo.BRANCH, false, -1);
+        pseudo("CLR", 1, 0b0100 << 12, Pseudo.CLEAR, true, -1);
+        pseudo("CLRW", 1, 0b0100 << 12, Pseudo.CLEAR, false, 0);
+        pseudo("CLRB", 1, 0b0100 << 12, Pseudo.CLEAR, false, 1);
+        pseudo("INC", 1, 0b0101 << 12, Pseudo.INCREMENT, true, -1);
+        pseudo("INCW", 1, 0b0101 << 12, Pseudo.INCREMENT, false, 0);
+        pseudo("INCB", 1, 0b0101 << 12, Pseudo.INCREMENT, false, 1);
+        pseudo("DEC", 1, 0b1000 << 12, Pseudo.DECREMENT, true, -1);
+        pseudo("DECW", 1, 0b1000 << 12, Pseudo.DECREMENT, false, 0);
+        pseudo("DECB", 1, 0b1000 << 12, Pseudo.DECREMENT, false, 1);
+        pseudo("TST", 1, 0b1001 << 12, Pseudo.TEST, true, -1);
+        pseudo("TSTW", 1, 0b1001 << 12, Pseudo.TEST, false, 0);
+        pseudo("TSTB", 1, 0b1001 << 12, Pseudo.TEST, false, 1);
+        add(new Descriptor("RET", 1, 0b0100 << 12, 0, false, Pseudo.RETURN, 0, Timing.DOUBLE_OPERAND));
+    }
+
+    private OpcodeTable() {
+    }
+
+    private static void format1(String mnemonic, int opcode) {
+        add(new Descriptor(mnemonic, 1, opcode << 12, 2, true, Pseudo.NONE, -1, Timing.DOUBLE_OPERAND));
+    }
 
-        // Ozel Durumlar
-        opcodeMap.put("NOP", "NOP");
+    private static void format2(String mnemonic, int opcode, boolean byteAllowed, Timing timing) {
+        add(new Descriptor(mnemonic, 2, opcode << 7, 1, byteAllowed, Pseudo.NONE, -1, timing));
+    }
+
+    private static void format3(String mnemonic, int opcode) {
+        add(new Descriptor(mnemonic, 3, opcode << 10, 1, false, Pseudo.NONE, -1, Timing.JUMP));
+    }
+
+    private static void pseudo(String mnemonic, int format, int opcode, Pseudo pseudo, boolean byteAllowed, int forcedBw) {
+        Timing timing = format == 3 ? Timing.JUMP : Timing.DOUBLE_OPERAND; // Kısa JMP Format 3 olarak kalabilir
+        add(new Descriptor(mnemonic, format, opcode, 1, byteAllowed, pseudo, forcedBw, timing));
+    }
+
+    private static void add(Descriptor d) {
+        int key = key(d.mnemonic(), 0, d.mnemonic().length());
+        int slot = slot(key);
+        while (descriptors[slot] != null) {
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        keys[slot] = key;
+        descriptors[slot] = d;
+        allDescriptors.put(d.mnemonic(), d);
+    }
+
+    /**
+     * Mnemonic karakterlerini (en fazla 4, büyük harfe katlanmış) tek bir int anahtara paketler.
+     * Komut olamayacak girdiler için 0 döner.
+     */
+    private static int key(CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > 4) return 0;
+        int key = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            } else if (!(c >= 'A' && c <= 'Z')) {
+                return 0;
+            }
+            key = (key << 8) | c;
+        }
+        return key;
+    }
+
+    private static int slot(int key) {
+        return (key * 0x9E3779B1) >>> (32 - 7); // Fibonacci hash, TABLE_SIZE = 1 << 7
+    }
+
+    /** Büyük/küçük harf duyarsız arama; bulunamazsa null döner. */
+    public static Descriptor lookup(CharSequence mnemonic) {
+        return lookup(mnemonic, 0, mnemonic.length());
+    }
 
-        opcodeMap.put("CLR", "0100"); // MOV
-        opcodeMap.put("INC", "0101"); // ADD
-        opcodeMap.put("DEC", "1000"); // SUB
-        opcodeMap.put("TST", "1001"); // CMP
+    public static Descriptor lookup(CharSequence s, int start, int end) {
+        int key = key(s, start, end);
+        if (key == 0) return null;
+        int slot = slot(key);
+        while (descriptors[slot] != null) {
+            if (keys[slot] == key) return descriptors[slot];
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return null;
+    }
 
+    /**
+     * Komutun adresleme modlarına göre statik çevrim sayısını verir (MSP430 ailesi kullanım kılavuzu tabloları).
+     * Sözde komutlar için dönüştürülmüş komutun tanımı verilmelidir. Bilinmeyen kombinasyonlarda 0 döner.
+     */
+    public static int cycles(Descriptor descriptor, List<Operand> operands) {
+        switch (descriptor.timing()) {
+            case NOP:
+                return 1;
+            case JUMP:
+                return 2;
+            case RETI:
+                return 5;
+            case DOUBLE_OPERAND: {
+                if (operands.size() != 2) return 0;
+                Operand dst = operands.get(1);
+                int dstClass;
+                if (dst.getMode() == Operand.Mode.REGISTER) {
+                    dstClass = dst.getRegister() == 0 ? 1 : 0; // PC hedefi ayrı sayılır
+                } else {
+                    dstClass = 2;
+                }
+                return DOUBLE_OPERAND_CYCLES[addressingClass(operands.get(0))][dstClass];
+            }
+            default: {
+                if (operands.size() != 1) return 0;
+                int mode = addressingClass(operands.get(0));
+                switch (descriptor.timing()) {
+                    case PUSH: return PUSH_CYCLES[mode];
+                    case CALL: return CALL_CYCLES[mode];
+                    default:   return SINGLE_OPERAND_CYCLES[mode];
+                }
+            }
+        }
+    }
 
+    private static int addressingClass(Operand operand) {
+        switch (operand.getMode()) {
+            case INDIRECT:               return 1;
+            case INDIRECT_AUTOINCREMENT: return 2;
+            case IMMEDIATE:              return 3;
+            case INDEXED:                return 4;
+            case SYMBOLIC:               return 5;
+            case ABSOLUTE:               return 6;
+            default:                     return 0; // Register ve sabit üreteci
+        }
     }
 
-    /** Komutun opcode unu verdiren fnks */
-    public String getOpcode(String mnemonic) {
-        String opcode = opcodeMap.get(mnemonic.toUpperCase());
-        if (opcode == null) {
+    /** Komutun tanımını verir, bulunamazsa hata fırlatır. */
+    public static Descriptor getDescriptor(String mnemonic) {
+        Descriptor d = lookup(mnemonic);
+        if (d == null) {
             throw new IllegalArgumentException("Geçersiz komut: " + mnemonic);
         }
-        return opcode;
+        return d;
     }
 
      /** tabloda varsa true yoksa false */
-    public boolean contains(String mnemonic) {
-        return opcodeMap.containsKey(mnemonic.toUpperCase());
+    public static boolean contains(String mnemonic) {
+        return lookup(mnemonic) != null;
     }
 
-    /** Opcode ları dışarı verir ama değiştirilmesine izin vermez put remove gibi komutların çalışmalarını engeller*/
-    public Map<String, String> getAllOpcodes() {
-        return Collections.unmodifiableMap(opcodeMap);
+    /** Tanımları dışarı verir ama değiştirilmesine izin vermez */
+    public static Map<String, Descriptor> getAllOpcodes() {
+        return Collections.unmodifiableMap(allDescriptors);
     }
 
     /** Konsol Çıktısı*/
-    public void printOpcodeTable() {
+    public static void printOpcodeTable() {
         System.out.println("Opcode Table İçeriği:");
         System.out.println("----------------------");
-        opcodeMap.forEach((mnemonic, opcode) ->
-                System.out.printf("%-10s : %s\n", mnemonic, opcode)
+        allDescriptors.forEach((mnemonic, d) ->
+                System.out.printf("%-10s : format %d, opcode %04X%s\n", mnemonic, d.format(), d.opcode(),
+                        d.isPseudo() ? " (" + d.pseudo().getTarget() + ")" : "")
         );
         System.out.println();
     }
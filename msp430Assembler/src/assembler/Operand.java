@@ -0,0 +1,213 @@
+package assembler;
+
+import java.util.List;
+
+/**
+ * PassOne tarafından bir kez ayrıştırılan ve Instruction üzerinde taşınan operand modeli.
+ * Register, adresleme modu (As/Ad bitleri), varsa ekstra kelimenin değeri ve
+ * relocation için aday sembol burada tutulur. PassTwo sadece bu modelden kodlama yapar.
+ */
+public final class Operand {
+
+    public enum Mode {
+        REGISTER,                // Rn               -> As=0
+        INDEXED,                 // x(Rn)            -> As=1 + ekstra kelime
+        SYMBOLIC,                // etiket           -> As=1, R0 + ekstra kelime
+        ABSOLUTE,                // &adres           -> As=1, R2 + ekstra kelime
+        INDIRECT,                // @Rn              -> As=2
+        INDIRECT_AUTOINCREMENT,  // @Rn+             -> As=3
+        IMMEDIATE,               // #deger           -> As=3, R0 (@PC+) + ekstra kelime
+        CONSTANT,                // #0,#1,#2,#4,#8,#-1 sabit sayı üreteci (R2/R3), ekstra kelime yok
+        JUMP_TARGET              // Format 3 atlama hedefi (sadece ifade)
+    }
+
+    private final Mode mode;
+    private final int register;
+    private final int addressingBits;
+    private final boolean requiresExtraWord;
+    private final int constantValue;               // Değer literal ise (expression == null)
+    private final CompiledExpression expression;   // Değer sembolik ise
+    private final boolean external;                // .ref sembolü: değeri linker dolduracak
+    private final String relocationCandidate;      // Relocation tablosuna eklenebilecek sembol
+
+    private Operand(Mode mode, int register, int addressingBits, boolean requiresExtraWord,
+                    int constantValue, CompiledExpression expression, boolean external, String relocationCandidate) {
+        this.mode = mode;
+        this.register = register;
+        this.addressingBits = addressingBits;
+        this.requiresExtraWord = requiresExtraWord;
+        this.constantValue = constantValue;
+        this.expression = expression;
+        this.external = external;
+        this.relocationCandidate = relocationCandidate;
+    }
+
+    private static Operand simple(Mode mode, int register, int addressingBits) {
+        return new Operand(mode, register, addressingBits, false, 0, null, false, null);
+    }
+
+    private static Operand withExtraWord(Mode mode, int register, int addressingBits, String valueText, String relocationCandidate) {
+        LiteralResolver.Result literal = LiteralResolver.scan(valueText);
+        switch (literal.status()) {
+            case VALUE:
+                return new Operand(mode, register, addressingBits, true, literal.value(), null, false, relocationCandidate);
+            case MALFORMED:
+                throw new IllegalArgumentException("Geçersiz literal formatı: " + valueText.trim());
+            default:
+                return new Operand(mode, register, addressingBits, true, 0,
+                        ExpressionEvaluator.compile(valueText), false, relocationCandidate);
+        }
+    }
+
+    /**
+     * Format 1 / Format 2 operandını ayrıştırır. Sabit sayı üreteci kararı burada, PassOne
+     * sırasında bilinen sembollerle verilir; böylece boyut ve kodlama her zaman tutarlıdır.
+     * Geçersiz register veya ifade sözdiziminde IllegalArgumentException / RuntimeException fırlatır.
+     */
+    public static Operand parse(String text, SymbolTable symbolTable) {
+        String operand = text.trim();
+        // Macro'dan gelen ##count gibi durumları ele al
+        if (operand.startsWith("##")) {
+            operand = operand.substring(1);
+        }
+        int length = operand.length();
+
+        // Adresleme Modu: Register Direct (Rn) -> ad=0
+        int register = RegisterTable.registerNumber(operand, 0, length);
+        if (register >= 0) {
+            return simple(Mode.REGISTER, register, 0);
+        }
+
+        // Adresleme Modu: Register Indirect Auto-increment (@Rn+) -> ad=3
+        if (operand.startsWith("@") && operand.endsWith("+")) {
+            return simple(Mode.INDIRECT_AUTOINCREMENT, RegisterTable.getRegisterNumber(operand, 1, length - 1), 3);
+        }
+
+        // Adresleme Modu: Register Indirect (@Rn) -> ad=2
+        if (operand.startsWith("@")) {
+            return simple(Mode.INDIRECT, RegisterTable.getRegisterNumber(operand, 1, length), 2);
+        }
+
+        // Adresleme Modu: Immediate (#imm)
+        if (operand.startsWith("#")) {
+            String imm = operand.substring(1);
+
+            // Eğer sembol bir dış referans (.ref) ise, linker'ın çözmesi için
+            // her zaman bir ekstra kelime gerekir. Bu, başlangıçta adresi 0 olan REF sembollerinin
+            // #0 sabitiyle karıştırılmasını önler.
+            if (isRefSymbol(imm, symbolTable)) {
+                return new Operand(Mode.IMMEDIATE, 0, 3, true, 0, null, true, imm);
+            }
+
+            // Sabit Sayı Üreteci (Constant Generator) Kontrolü
+            // MSP430, bazı küçük sabitleri (0, 1, 2, 4, 8, -1) ekstra kelime kullanmadan
+            // doğrudan makine koduna gömebilir. Değer henüz çözülemiyorsa (ileri referans) ekstra kelime kullanılır.
+            CompiledExpression.Result resolved = LiteralResolver.tryResolve(imm, symbolTable);
+            if (resolved.isResolved()) {
+                switch (resolved.value()) {
+                    case 0:  return simple(Mode.CONSTANT, 3, 0); // Mode 0, R3 (CG) -> #0
+                    case 1:  return simple(Mode.CONSTANT, 3, 1); // Mode 1, R3 (CG) -> #1
+                    case 2:  return simple(Mode.CONSTANT, 3, 2); // Mode 2, R3 (CG) -> #2
+                    case -1: return simple(Mode.CONSTANT, 3, 3); // Mode 3, R3 (CG) -> #-1
+                    case 4:  return simple(Mode.CONSTANT, 2, 2); // Mode 2, R2 (SR) -> #4
+                    case 8:  return simple(Mode.CONSTANT, 2, 3); // Mode 3, R2 (SR) -> #8
+                }
+            }
+
+            // Standart anlık mod (PC (R0) ile mod 3 -> @PC+), ekstra kelime gerektirir.
+            return withExtraWord(Mode.IMMEDIATE, 0, 3, imm, imm);
+        }
+
+        // Adresleme Modu: Indexed (x(Rn)) -> ad=1
+        if (operand.endsWith(")")) {
+            int open = operand.lastIndexOf('(');
+            if (open >= 0 && isNumberedRegister(operand, open + 1, length - 1)) {
+                int indexRegister = RegisterTable.getRegisterNumber(operand, open + 1, length - 1);
+                String offset = operand.substring(0, open).trim();
+                int firstParen = operand.indexOf('(');
+                String symbol = operand.substring(0, firstParen).trim();
+                return withExtraWord(Mode.INDEXED, indexRegister, 1, offset, symbol);
+            }
+        }
+
+        // Adresleme Modu: Absolute (&addr) -> ad=1, R2 (SR) ile
+        if (operand.startsWith("&")) {
+            String address = operand.substring(1);
+            return withExtraWord(Mode.ABSOLUTE, 2, 1, address, address);
+        }
+
+        // Adresleme Modu: Symbolic (etiket) -> ad=1, PC (R0) ile
+        return withExtraWord(Mode.SYMBOLIC, 0, 1, operand, operand);
+    }
+
+    /** Format 3 (jump) komutlarının hedef ifadesini ayrıştırır. */
+    public static Operand jumpTarget(String text, SymbolTable symbolTable) {
+        String target = text.trim();
+        if (isRefSymbol(target, symbolTable)) {
+            return new Operand(Mode.JUMP_TARGET, 0, 0, false, 0, null, true, target);
+        }
+        return new Operand(Mode.JUMP_TARGET, 0, 0, false, 0, ExpressionEvaluator.compile(target), false, target);
+    }
+
+    /**
+     * Operandın değerini (ekstra kelime veya atlama hedefi) PassTwo anındaki sembol tablosuyla hesaplar.
+     * .ref sembolleri için 0 döner; değeri linker dolduracak.
+     */
+    public int resolveValue(SymbolTable symbolTable) {
+        if (external) return 0;
+        if (expression == null) return constantValue;
+        CompiledExpression.Result result = expression.evaluate(symbolTable);
+        if (!result.isResolved()) {
+            throw new RuntimeException("Geçersiz ifade veya sembol: " + result.unresolvedSymbol());
+        }
+        return result.value();
+    }
+
+    /** Operand değerinin bağlı olduğu semboller (artımlı Pass 2 hangi komutları yeniden kodlayacağını buna göre seçer). */
+    public List<String> getSymbols() {
+        if (external) return List.of(relocationCandidate);
+        return expression != null ? expression.getSymbols() : List.of();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getRegister() {
+        return register;
+    }
+
+    /** As (kaynak) bitleri; hedef operand için Ad olarak kullanılır. */
+    public int getAddressingBits() {
+        return addressingBits;
+    }
+
+    public boolean requiresExtraWord() {
+        return requiresExtraWord;
+    }
+
+    public boolean isExternal() {
+        return external;
+    }
+
+    public String getRelocationCandidate() {
+        return relocationCandidate;
+    }
+
+    private static boolean isRefSymbol(String label, SymbolTable symbolTable) {
+        if (!symbolTable.contains(label)) return false;
+        return symbolTable.getAllSymbols().get(label).getBinding() == SymbolTable.SymbolEntry.Binding.REF;
+    }
+
+    /** "R" + rakamlar (büyük/küçük harf duyarsız) */
+    private static boolean isNumberedRegister(String s, int start, int end) {
+        if (end - start < 2) return false;
+        char r = s.charAt(start);
+        if (r != 'R' && r != 'r') return false;
+        for (int i = start + 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -4,8 +4,15 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.function.Predicate;
 
 /**
  * PassOne:
@@ -15,58 +22,406 @@ import java.util.List;
  */
 public class PassOne {
 
-    private final SymbolTable symbolTable;
+    /** Format 3 atlamanın 10 bitlik (kelime cinsinden) offset aralığı */
+    static final int MIN_JUMP_OFFSET = -512;
+    static final int MAX_JUMP_OFFSET = 511;
+
+    private SymbolTable symbolTable;
     private final List<Instruction> instructions;
-    private final SectionManager sectionManager;
+    private SectionManager sectionManager;
+    private final LineLexer lexer = new LineLexer();
+    private final MacroLibraryCache macroLibraryCache; // Derleme grubu boyunca paylaşılan .mlib önbelleği
     private String currentSourceFile; // Mevcut dosya adını saklamak için
+    private int currentSourceFileId = IdRegistry.NONE; // currentSourceFile'ın IdRegistry.FILES kimliği
+
+    // Dallanma gevşetme (branch relaxation) durumu
+    private record ShortJump(Instruction inst, int statementIndex) {}
+    private final BitSet widenedJumps = new BitSet();           // MOV #x,R0'a genişletilmesi gereken JMP'ler (satır sırasıyla)
+    private final List<ShortJump> shortJumps = new ArrayList<>(); // Bu geçişte kısa bırakılan JMP'ler
+    private PersistentMap<String, Integer> labelSections = PersistentMap.empty(); // Etiket -> tanımlandığı section'ın kimliği
+
+    // Peephole optimizasyonu: satır sırası -> yerine geçen satır
+    private boolean peepholeEnabled = true;
+    private final Map<Integer, PeepholeOptimizer.Rewrite> peepholeRewrites = new HashMap<>();
+    private final List<String> pendingNotes = new ArrayList<>(); // Kaldırılan satırların notları, sonraki komuta eklenir
+    private int statementCounter;  // Genişletilmiş kaynaktaki satır sayacı (tekrarlanan geçişlerde aynı kalır)
+    private int currentStatement;
+    private int currentSourceLine; // currentStatement'ı üreten kaynak satırı (hata mesajları için)
+
+    // Artımlı (editör tamponu) derleme: CHECKPOINT_INTERVAL kaynak satırında bir alınan Pass 1 durumu
+    static final int CHECKPOINT_INTERVAL = 32;
+    private record Checkpoint(int sourceLine, int statement, int instructionCount, int shortJumpCount,
+                              SectionManager sections, SymbolTable symbols, PersistentMap<String, Integer> labelSections,
+                              List<String> pendingNotes, MacroProcessor.State macros) {}
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private List<String> bufferLines = List.of(); // Son işlenen tampon
+    private String bufferBaseDir;                 // .mlib göreceli yolları için
+    private int validLines;                       // Son işlemede hatasız işlenen satır sayısı
+    private int rebuiltFrom = Integer.MAX_VALUE;  // Son başarılı processBuffer'dan beri yeniden oluşturulan ilk komut
 
     public PassOne() {
+        this(null);
+    }
+
+    public PassOne(MacroLibraryCache macroLibraryCache) {
         symbolTable = new SymbolTable();
         instructions = new ArrayList<>();
         sectionManager = new SectionManager();
+        this.macroLibraryCache = macroLibraryCache;
+    }
+
+    /** Peephole optimizasyonunu açar/kapatır (varsayılan: açık). processFile'dan önce çağrılmalıdır. */
+    public void setPeepholeEnabled(boolean peepholeEnabled) {
+        this.peepholeEnabled = peepholeEnabled;
     }
 
     public void processFile(String sourceFile) {
         try {
-            // 1. ADIM: Macroları genişletmek için MacroProcessor'ı kullan
             this.currentSourceFile = new java.io.File(sourceFile).getName();
-            MacroProcessor macroProcessor = new MacroProcessor();
-            String expandedCode = macroProcessor.expandFile(sourceFile);
-
-            // 2. ADIM: Genişletilmiş kodu işle
-            processString(expandedCode);
+            this.currentSourceFileId = IdRegistry.FILES.idOf(currentSourceFile);
+            // 1. ADIM: Macroları genişleten satır akışını MacroProcessor'dan aç
+            // 2. ADIM: Genişletilmiş satırları akıştan tek tek çekerek işle.
+            // 3. ADIM: Peephole değişiklikleri bulunursa satırlara uygulanıp geçiş tekrarlanır.
+            // Tüm JMP'ler kısa (Format 3) başlar; menzil dışında kalanlar genişletilir ve
+            // yerleşim sabit noktaya ulaşana kadar geçiş tekrarlanır. Değişiklikler ve genişletme
+            // tek yönlü olduğundan döngü sonlanır.
+            readSource(sourceFile);
+            while (findRestart() >= 0) {
+                reset();
+                readSource(sourceFile);
+            }
 
         } catch (IOException e) {
-            System.err.println("Dosya okunamadı veya macro işlenemedi: " + e.getMessage());
-            e.printStackTrace();
+            // Okunamayan dosya boş bir program gibi derlenmesin; çağıran (GUI, CLI) hatayı raporlar
+            throw new UncheckedIOException("Dosya okunamadı veya macro işlenemedi: " + e.getMessage(), e);
+        } catch (CancellationException e) {
+            throw e; // İptal bir hata değildir, olduğu gibi iletilir
         } catch (Exception e) {
-            // Macro hatalarını (örn: argüman sayısı, kapatılmamış macro) yakala
-            System.err.println("Macro işleme hatası: " + e.getMessage());
-            e.printStackTrace();
-            // GUI'de hatayı göstermek için bir RuntimeException fırlatabiliriz
+            // Macro hatalarını (örn: argüman sayısı, kapatılmamış macro) yakala;
+            // GUI ve CLI mesajı kendisi gösterir
             throw new RuntimeException("Macro Hatası: " + e.getMessage(), e);
         }
     }
 
-    private void processLine(String line) {
-        line = line.trim();
+    private void readSource(String sourceFile) throws IOException {
+        MacroProcessor macroProcessor = new MacroProcessor(macroLibraryCache);
+        try (MacroProcessor.ExpandedSource source = macroProcessor.expand(sourceFile)) {
+            readLines(source, null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Genişletilmiş satırları işler. 'checkpointMacros' verilirse (tampon derlemesi) macro akışının
+     * satır sınırlarında CHECKPOINT_INTERVAL satırda bir checkpoint alınır.
+     */
+    private void readLines(MacroProcessor.ExpandedSource source, MacroProcessor checkpointMacros) {
+        while (true) {
+            BuildProgress.checkCancelled(); // Arka plan derlemesi iptal edildiyse dur
+            if (checkpointMacros != null && source.atLineBoundary() && source.getLineNumber() >= nextCheckpointLine()) {
+                takeCheckpoint(source.getLineNumber(), checkpointMacros);
+            }
+            if (!source.hasNext()) break;
+            String line = source.next();
+            currentSourceLine = source.getLineNumber(); // Macro gövdesi satırları çağrı satırını gösterir
+            processLine(line);
+        }
+        // Dosya sonunda kaldırılan satırların notları son komuta eklenir
+        if (!pendingNotes.isEmpty() && !instructions.isEmpty()) {
+            Instruction last = instructions.get(instructions.size() - 1);
+            for (String note : pendingNotes) {
+                // Artımlı derlemede son komut önceki işlemeden kalmış olabilir; not tekrar eklenmez
+                if (!last.getListingNotes().contains(note)) last.addListingNote(note);
+            }
+        }
+        pendingNotes.clear();
+    }
+
+    /**
+     * Editör tamponunu (kaydedilmemiş kaynak) artımlı olarak işler. İlk değişen satırdan önceki en yakın
+     * checkpoint'e dönülür ve sadece oradan sonraki satırlar yeniden çalıştırılır; peephole ve JMP
+     * genişletme sabit noktası da en erken etkilenen satırın checkpoint'inden tekrarlanır.
+     * Önceki bir peephole desenini ikiye bölen checkpoint'ler atlanır; değişen bölgedeki genişletilmiş
+     * JMP'ler kısa olarak yeniden denenir. Değişmeyen bölgede genişletilmiş bir JMP, yeni yerleşimde kısa
+     * biçime sığabilecekse ondan önceki checkpoint'ten yeniden işlenir; sonuç baştan derlemeyle aynıdır.
+     *
+     * @return Son başarılı çağrıdan beri yeniden oluşturulan ilk Instruction'ın indeksi; öncekiler
+     *         o çağrıdaki nesnelerin aynısıdır (arada hatalı çağrılar olsa bile).
+     * @throws RuntimeException Satır hatası ("Satır N: ..."); sonraki çağrı o satırdan itibaren yeniden işler.
+     */
+    public int processBuffer(List<String> lines, String sourceName, String baseDir) {
+        if (!sourceName.equals(currentSourceFile) || !Objects.equals(baseDir, bufferBaseDir)) {
+            checkpoints.clear(); // Başka bir dosya: baştan
+        }
+        currentSourceFile = sourceName;
+        currentSourceFileId = IdRegistry.FILES.idOf(sourceName);
+        bufferBaseDir = baseDir;
+
+        int firstChanged = Math.min(firstDifference(bufferLines, lines), validLines);
+        if (!checkpoints.isEmpty() && firstChanged == lines.size() && lines.size() == bufferLines.size()) {
+            return instructions.size(); // Değişiklik yok
+        }
+        bufferLines = List.copyOf(lines);
+        validLines = 0;
+
+        Checkpoint checkpoint = checkpointForEdit(firstChanged);
+        int keptBefore = checkpoint != null ? checkpoint.statement() : 0; // Bu satır sırasından öncesi yeniden işlenmedi
+        while (true) {
+            runBuffer(checkpoint);
+            for (int restart = findRestart(); restart >= 0; restart = findRestart()) {
+                int statement = restart;
+                runBuffer(latestCheckpoint(c -> c.statement() <= statement));
+            }
+            int jump = shrinkableWidenedJump(keptBefore);
+            if (jump < 0) break;
+            checkpoint = rewindTo(latestCheckpoint(c -> c.statement() <= jump));
+            keptBefore = checkpoint.statement();
+        }
+        validLines = lines.size();
+        int firstNew = Math.min(rebuiltFrom, instructions.size());
+        rebuiltFrom = Integer.MAX_VALUE;
+        return firstNew;
+    }
+
+    /** Checkpoint'ten (null ise baştan) tamponun sonuna kadar işler. */
+    private void runBuffer(Checkpoint checkpoint) {
+        MacroProcessor macroProcessor = new MacroProcessor(macroLibraryCache);
+        int fromLine = 0;
+        rebuiltFrom = Math.min(rebuiltFrom, checkpoint != null ? checkpoint.instructionCount() : 0);
+        if (checkpoint != null) {
+            restore(checkpoint);
+            macroProcessor.restore(checkpoint.macros());
+            fromLine = checkpoint.sourceLine();
+        } else {
+            reset();
+            pendingNotes.clear();
+            checkpoints.clear();
+        }
+        MacroProcessor.ExpandedSource source = macroProcessor.expand(bufferLines, fromLine, bufferBaseDir);
+        try {
+            readLines(source, macroProcessor);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            validLines = Math.max(0, source.getLineNumber() - 1); // Hatalı satıra kadar olan checkpoint'ler geçerli
+            String message = e instanceof UncheckedIOException ? e.getCause().getMessage() : e.getMessage();
+            throw new RuntimeException("Satır " + (validLines + 1) + ": " + message, e);
+        }
+    }
+
+    /**
+     * İlk değişen satırdan önceki en yakın checkpoint (bkz. rewindTo). Seçilen noktadan sonraki peephole
+     * değişiklikleri ve JMP genişletmeleri satır sıraları kayabileceği için silinir.
+     */
+    private Checkpoint checkpointForEdit(int firstChangedLine) {
+        if (checkpoints.isEmpty()) {
+            peepholeRewrites.clear();
+            widenedJumps.clear();
+            return null;
+        }
+        return rewindTo(latestCheckpoint(c -> c.sourceLine() <= firstChangedLine));
+    }
+
+    /**
+     * Checkpoint bir peephole desenini (veya desenin karar için baktığı satırları) bölmüyorsa kendisini,
+     * bölüyorsa desenin başından önceki checkpoint'i döner; dönen noktadan sonraki peephole değişiklikleri ve JMP genişletmeleri silinir.
+     */
+    private Checkpoint rewindTo(Checkpoint checkpoint) {
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (Map.Entry<Integer, PeepholeOptimizer.Rewrite> e : peepholeRewrites.entrySet()) {
+                int anchor = e.getValue().anchor();
+                int last = Math.max(e.getKey(), e.getValue().dependsUntil());
+                if (last >= checkpoint.statement() && anchor < checkpoint.statement()) {
+                    checkpoint = latestCheckpoint(c -> c.statement() <= anchor);
+                    moved = true;
+                    break;
+                }
+            }
+        }
+        int from = checkpoint.statement();
+        peepholeRewrites.keySet().removeIf(statement -> statement >= from);
+        widenedJumps.clear(from, Math.max(from, widenedJumps.length()));
+        return checkpoint;
+    }
+
+    /**
+     * 'keptBefore'dan önceki (yeniden işlenmemiş) kısımda genişletilmiş olup aralığındaki bütün genişletilmiş
+     * JMP'ler kısa olsaydı kısa biçime sığabilecek ilk JMP'nin satır sırası; yoksa -1. Aralığı tamamen
+     * değişmeyen kısımda kalan JMP'lerin mesafesi değişmediği için kontrol edilmez. Bu üst sınırla bile
+     * sığmayan JMP baştan derlemede de genişletilir.
+     */
+    private int shrinkableWidenedJump(int keptBefore) {
+        int first = widenedJumps.nextSetBit(0);
+        if (first < 0 || first >= keptBefore) return -1;
+        Map<String, Integer> labelStatements = new HashMap<>();
+        List<Instruction> widened = new ArrayList<>();
+        for (Instruction inst : instructions) {
+            if (inst.getLabel() != null) labelStatements.putIfAbsent(inst.getLabel(), inst.getStatementIndex());
+            if (widenedJumps.get(inst.getStatementIndex()) && "JMP".equals(inst.getMnemonic())) widened.add(inst);
+        }
+        for (Instruction jump : widened) {
+            if (jump.getStatementIndex() >= keptBefore) break; // instructions satır sırasındadır
+            String target = jump.getOperandString().trim();
+            Integer targetStatement = labelStatements.get(target);
+            if (targetStatement == null || targetStatement < keptBefore) continue; // .equ sabiti veya değişmeyen aralık
+            Integer targetSection = labelSections.get(target);
+            if (targetSection == null || targetSection != jump.getSectionId()) continue; // Yerleşimden bağımsız olarak uzun
+
+            int targetAddr = symbolTable.getAddress(target);
+            int low = Math.min(jump.getAddress(), targetAddr);
+            int high = Math.max(jump.getAddress(), targetAddr);
+            int saved = 0; // Aralıktaki genişletilmiş JMP'ler kısa olursa kazanılacak byte
+            for (Instruction other : widened) {
+                if (other != jump && other.getSectionId() == jump.getSectionId()
+                        && other.getAddress() > low && other.getAddress() < high) saved += 2;
+            }
+            int distance = targetAddr - jump.getAddress() - 2;
+            distance += distance > 0 ? -(saved + 2) : saved; // İleri atlamada JMP'nin kendi ekstra kelimesi de düşer
+            int offset = distance / 2;
+            if (offset >= MIN_JUMP_OFFSET && offset <= MAX_JUMP_OFFSET) return jump.getStatementIndex();
+        }
+        return -1;
+    }
+
+    private Checkpoint latestCheckpoint(Predicate<Checkpoint> condition) {
+        for (int i = checkpoints.size() - 1; i >= 0; i--) {
+            if (condition.test(checkpoints.get(i))) return checkpoints.get(i);
+        }
+        return checkpoints.get(0); // İlk checkpoint her zaman 0. satırdadır
+    }
+
+    private int nextCheckpointLine() {
+        return checkpoints.isEmpty() ? 0 : checkpoints.get(checkpoints.size() - 1).sourceLine() + CHECKPOINT_INTERVAL;
+    }
+
+    private void takeCheckpoint(int sourceLine, MacroProcessor macroProcessor) {
+        checkpoints.add(new Checkpoint(sourceLine, statementCounter, instructions.size(), shortJumps.size(),
+                sectionManager.copy(), symbolTable.snapshot(), labelSections,
+                List.copyOf(pendingNotes), macroProcessor.snapshot()));
+    }
+
+    /** Pass 1 durumunu checkpoint'e döndürür; checkpoint'in kendisi değişmeden kalır. */
+    private void restore(Checkpoint checkpoint) {
+        symbolTable = checkpoint.symbols().snapshot();
+        sectionManager = checkpoint.sections().copy();
+        instructions.subList(checkpoint.instructionCount(), instructions.size()).clear();
+        shortJumps.subList(checkpoint.shortJumpCount(), shortJumps.size()).clear();
+        labelSections = checkpoint.labelSections();
+        pendingNotes.clear();
+        pendingNotes.addAll(checkpoint.pendingNotes());
+        statementCounter = checkpoint.statement();
+        checkpoints.removeIf(c -> c.sourceLine() > checkpoint.sourceLine());
+    }
+
+    private static int firstDifference(List<String> a, List<String> b) {
+        int n = Math.min(a.size(), b.size());
+        for (int i = 0; i < n; i++) {
+            if (!a.get(i).equals(b.get(i))) return i;
+        }
+        return n;
+    }
+
+    /**
+     * Peephole veya JMP genişletme yeni bir değişiklik ürettiyse en erken etkilenen satır sırasını,
+     * üretmediyse -1 döner. Peephole önce uygulanır; genişletme sadece yeni peephole değişikliği yoksa denenir.
+     */
+    private int findRestart() {
+        int restart = applyPeephole();
+        return restart >= 0 ? restart : widenOutOfRangeJumps();
+    }
+
+    /** Yeni peephole değişikliği bulunduysa en küçük satır sırasını, bulunmadıysa -1 döner. */
+    private int applyPeephole() {
+        if (!peepholeEnabled) return -1;
+        Map<Integer, PeepholeOptimizer.Rewrite> found =
+                PeepholeOptimizer.findRewrites(instructions, peepholeRewrites.keySet());
+        peepholeRewrites.putAll(found);
+        int first = -1;
+        for (int statement : found.keySet()) {
+            if (first < 0 || statement < first) first = statement;
+        }
+        return first;
+    }
 
-        int commentIndex = line.indexOf(';');
-        if (commentIndex != -1) {
-            line = line.substring(0, commentIndex).trim();
+    private void addInstruction(Instruction inst) {
+        inst.setStatementIndex(currentStatement);
+        inst.setSourceLine(currentSourceLine);
+        for (String note : pendingNotes) {
+            inst.addListingNote(note);
         }
+        pendingNotes.clear();
+        instructions.add(inst);
+    }
+
+    /** Tekrarlanan geçişten önce durumu sıfırlar; genişletilmiş JMP'ler ve peephole değişiklikleri korunur. */
+    private void reset() {
+        symbolTable = new SymbolTable();
+        sectionManager = new SectionManager();
+        instructions.clear();
+        shortJumps.clear();
+        labelSections = PersistentMap.empty();
+        statementCounter = 0;
+    }
 
-        if (line.isEmpty()) return;
+    /**
+     * Kısa bırakılan JMP'leri kontrol eder; hedefi aynı section'daki bir etiket olmayan veya
+     * 10 bitlik menzile sığmayanları genişletilecek olarak işaretler.
+     * Yeni bir JMP genişletildiyse ilkinin satır sırasını, genişletilmediyse -1 döner.
+     */
+    private int widenOutOfRangeJumps() {
+        int first = -1;
+        for (ShortJump jump : shortJumps) {
+            if (!fitsShortJump(jump.inst())) {
+                widenedJumps.set(jump.statementIndex());
+                if (first < 0) first = jump.statementIndex(); // shortJumps satır sırasındadır
+            }
+        }
+        return first;
+    }
+
+    private boolean fitsShortJump(Instruction inst) {
+        String target = inst.getOperandString().trim();
+        if (!symbolTable.contains(target)) return true; // Tanımsız sembol: PassTwo hata olarak raporlar
+        Integer targetSection = labelSections.get(target);
+        if (targetSection == null || targetSection != inst.getSectionId()) return false; // .equ sabiti veya başka section
+        int offset = (symbolTable.getAddress(target) - inst.getAddress() - 2) / 2;
+        return offset >= MIN_JUMP_OFFSET && offset <= MAX_JUMP_OFFSET;
+    }
+
+    /** JMP kısa başlatılabilir mi? Hedef tek bir sembol olmalı ve .ref ile dışarıdan gelmemeli. */
+    private boolean isShortJumpCandidate(Instruction inst) {
+        if (!"JMP".equals(inst.getMnemonic()) || inst.getOperandString() == null) return false;
+        if (widenedJumps.get(currentStatement)) return false;
+        String target = inst.getOperandString().trim();
+        try {
+            if (!ExpressionEvaluator.compile(target).isSingleSymbol()) return false;
+        } catch (RuntimeException e) {
+            return false; // Sözdizimi hatası uzun biçimde PassTwo'da raporlanır
+        }
+        return !symbolTable.contains(target)
+                || symbolTable.getAllSymbols().get(target).getBinding() != SymbolTable.SymbolEntry.Binding.REF;
+    }
+
+    private void processLine(String line) {
+        currentStatement = statementCounter++;
+        PeepholeOptimizer.Rewrite rewrite = peepholeRewrites.get(currentStatement);
+        if (rewrite != null) {
+            line = rewrite.replacement();
+            if (rewrite.note() != null) pendingNotes.add("peephole: " + rewrite.note());
+        }
+        if (!lexer.scan(line)) return;
 
         String label = null;
         String mnemonic;
         String operandString = null;
         int bw = 0;
 
-        String[] parts = line.split("[\\s]+", 2);
-
-        if (parts[0].endsWith(":")) {
-            label = parts[0].substring(0, parts[0].length() - 1);
+        if (lexer.hasLabel()) {
+            label = lexer.getLabel();
+            labelSections = labelSections.put(label, sectionManager.getActiveSectionId());
             if (symbolTable.contains(label)) {
                 SymbolTable.SymbolEntry entry = symbolTable.getAllSymbols().get(label);
                 if (entry.isDefined()) {
@@ -76,29 +431,24 @@ public class PassOne {
                      throw new IllegalArgumentException("Hata: '" + label + "' .REF ile içeri aktarılmış, bu dosyada yeniden tanımlanamaz.");
                 }
                 // It's a forward reference from .def. Update it.
-                symbolTable.addOrUpdateSymbol(label, sectionManager.getCurrentSPC(), sectionManager.getActiveSection());
+                symbolTable.addOrUpdateSymbol(label, sectionManager.getCurrentSPC(), sectionManager.getActiveSectionId());
             } else {
                 // Not in table, a simple new label.
-            symbolTable.addSymbol(label, sectionManager.getCurrentSPC(), sectionManager.getActiveSection());
+            symbolTable.addSymbol(label, sectionManager.getCurrentSPC(), sectionManager.getActiveSectionId());
             }
 
-            if (parts.length > 1) {
-                line = parts[1];
-                parts = line.split("[\\s]+", 2);
-            } else {
+            if (!lexer.hasMnemonic()) {
                 Instruction inst = new Instruction(label, null, null, sectionManager.getCurrentSPC(), 0);
-                inst.setSection(sectionManager.getActiveSection());
+                inst.setSectionId(sectionManager.getActiveSectionId());
                 inst.setRawLine(label + ":"); // sadece etiket varsa onu rawLine olarak kaydet
-                inst.setSourceFile(currentSourceFile);
-                instructions.add(inst);
+                inst.setSourceFileId(currentSourceFileId);
+                addInstruction(inst);
                 return;
             }
         }
 
-        mnemonic = parts[0].toLowerCase();
-
         // .equ veya .set tanımı ise
-        if (mnemonic.equalsIgnoreCase(".equ") || mnemonic.equalsIgnoreCase(".set")) {
+        if (!lexer.hasName() && (lexer.mnemonicIs(".equ") || lexer.mnemonicIs(".set"))) {
             if (label == null) {
                 // .equ/.set için etiketsiz kullanım anlamsız, ancak macro içinde olabilir.
                 // Şimdilik hata fırlatmak yerine uyarı verip geçmek daha güvenli olabilir.
@@ -106,54 +456,49 @@ public class PassOne {
                 return; // Bu satırı atla
             }
 
-            if (parts.length < 2) {
-                throw new IllegalArgumentException(mnemonic + " için değer belirtilmemiş.");
+            if (!lexer.hasOperands()) {
+                throw new IllegalArgumentException(lexer.getMnemonicUpper().toLowerCase() + " için değer belirtilmemiş.");
             }
 
-            String valueStr = parts[1].trim();
+            String valueStr = lexer.getOperands();
             int value = LiteralResolver.resolve(valueStr, symbolTable);
 
-            if (mnemonic.equalsIgnoreCase(".equ")) {
+            if (lexer.mnemonicIs(".equ")) {
                 if (symbolTable.contains(label)) {
                     throw new IllegalArgumentException(".equ ile sembol yeniden tanımlanamaz: " + label);
                 }
-                symbolTable.addSymbol(label, value, ".text"); // .equ symbols don't have a section, using .text as placeholder
+                symbolTable.addSymbol(label, value, SectionManager.TEXT); // .equ symbols don't have a section, using .text as placeholder
             } else {
                 // .set
-                symbolTable.addOrUpdateSymbol(label, value, ".text");
+                symbolTable.addOrUpdateSymbol(label, value, SectionManager.TEXT);
             }
 
             return; // satır sonlandırılır
         }
 
         // .equ veya .set tanımı varsa ve label içeriyorsa (örn: BUF_SIZE .equ 16)
-        if (line.matches("^[a-zA-Z_][\\w]*\\s+\\.(equ|set)\\b.*")) {
-            int firstSpace = line.indexOf(' ');
-            String rawLabel = line.substring(0, firstSpace).trim();
-
-            String rest = line.substring(firstSpace).trim();
-            int secondSpace = rest.indexOf(' ');
-            String directive = (secondSpace == -1) ? rest : rest.substring(0, secondSpace).trim();
-            String operand = (secondSpace == -1) ? "" : rest.substring(secondSpace).trim();
+        if (lexer.hasName()) {
+            String rawLabel = lexer.getName();
+            String operand = lexer.hasOperands() ? lexer.getOperands() : "";
 
             int value = LiteralResolver.resolve(operand, symbolTable);
 
-            if (directive.equalsIgnoreCase(".equ")) {
+            if (lexer.mnemonicIs(".equ")) {
                 if (symbolTable.contains(rawLabel)) {
                     throw new IllegalArgumentException(".equ ile sembol yeniden tanımlanamaz: " + rawLabel);
                 }
-                symbolTable.addSymbol(rawLabel, value, ".text");
+                symbolTable.addSymbol(rawLabel, value, SectionManager.TEXT);
             } else {
-                symbolTable.addOrUpdateSymbol(rawLabel, value, ".text");
+                symbolTable.addOrUpdateSymbol(rawLabel, value, SectionManager.TEXT);
             }
 
             return;
         }
 
         // .REF and .DEF handling
-        if (mnemonic.equalsIgnoreCase(".ref")) {
-            if (parts.length < 2) throw new IllegalArgumentException(".ref için sembol belirtilmemiş.");
-            String[] refSymbols = parts[1].split(",");
+        if (lexer.mnemonicIs(".ref")) {
+            if (!lexer.hasOperands()) throw new IllegalArgumentException(".ref için sembol belirtilmemiş.");
+            String[] refSymbols = lexer.getOperands().split(",");
             for (String sym : refSymbols) {
                 // Add to symbol table with REF binding, address is 0 as it's external
                 symbolTable.define(sym.trim(), 0, SymbolTable.SymbolEntry.Binding.REF);
@@ -162,9 +507,9 @@ public class PassOne {
             return;
         }
 
-        if (mnemonic.equalsIgnoreCase(".def")) {
-            if (parts.length < 2) throw new IllegalArgumentException(".def için sembol belirtilmemiş.");
-            String[] defSymbols = parts[1].split(",");
+        if (lexer.mnemonicIs(".def")) {
+            if (!lexer.hasOperands()) throw new IllegalArgumentException(".def için sembol belirtilmemiş.");
+            String[] defSymbols = lexer.getOperands().split(",");
             for (String sym : defSymbols) {
                 String symbolToDefine = sym.trim();
                 if (symbolTable.contains(symbolToDefine)) {
@@ -179,40 +524,39 @@ public class PassOne {
         }
 
         // Section değişimi varsa .text, .data, .bss
-        if (mnemonic.equals(".text") || mnemonic.equals(".data") || mnemonic.equals(".bss")) {
-            sectionManager.setActiveSection(mnemonic);
+        if (lexer.mnemonicIs(".text") || lexer.mnemonicIs(".data") || lexer.mnemonicIs(".bss")) {
+            sectionManager.setActiveSection(lexer.mnemonicIs(".text") ? SectionManager.TEXT
+                    : lexer.mnemonicIs(".data") ? SectionManager.DATA : SectionManager.BSS);
             return;
         }
 
         // .ORG varsa SPC güncelle
-        if (mnemonic.equals(".org")) {
-            int newAddr = Integer.decode(parts[1].trim());
-            sectionManager.setSPC(sectionManager.getActiveSection(), newAddr);
+        if (lexer.mnemonicIs(".org")) {
+            int newAddr = Integer.decode(lexer.getOperands());
+            sectionManager.setSPC(sectionManager.getActiveSectionId(), newAddr);
             return;
         }
 
-        // .B / .W ayrımı
-        if (mnemonic.endsWith(".b")) {
-            bw = 1;
-            mnemonic = mnemonic.substring(0, mnemonic.length() - 2);
-        } else if (mnemonic.endsWith(".w")) {
-            bw = 0;
-            mnemonic = mnemonic.substring(0, mnemonic.length() - 2);
-        }
-
-        if (parts.length > 1) {
-            operandString = parts[1];
-        }
+        mnemonic = lexer.getMnemonicUpper();
+        operandString = lexer.getOperands();
 
         int format = determineFormat(mnemonic);
+
+        // .B / .W ayrımı (lexer eki mnemonic'ten zaten ayırdı)
+        if (lexer.getSizeSuffix() == 'B') {
+            if (!OpcodeTable.getDescriptor(mnemonic).byteAllowed()) {
+                throw new IllegalArgumentException(".B eki bu komutla kullanılamaz: " + mnemonic);
+            }
+            bw = 1;
+        }
         int currentSPC = sectionManager.getCurrentSPC();
 
-        Instruction inst = new Instruction(label, mnemonic.toUpperCase(), operandString, currentSPC, format);
-        inst.setSection(sectionManager.getActiveSection());
-        inst.setSourceFile(currentSourceFile);
+        Instruction inst = new Instruction(label, mnemonic, operandString, currentSPC, format);
+        inst.setSectionId(sectionManager.getActiveSectionId());
+        inst.setSourceFileId(currentSourceFileId);
         inst.setBw(bw);
-        instructions.add(inst);
-        inst.setRawLine(line);
+        addInstruction(inst);
+        inst.setRawLine(lexer.getStatementText());
 
 
         updateSPC(inst);
@@ -221,7 +565,15 @@ public class PassOne {
     private void updateSPC(Instruction inst) {
         // Sözde komutların gerçekte neye dönüştüğünü öğrenmek için PassTwo'daki
         // merkezi dönüşüm mantığını kullanıyoruz. Bu, SPC hesaplamasının doğru olmasını sağlar.
-        PassTwo.TransformedInstruction ti = PassTwo.transformPseudoInstruction(inst);
+        // Genişletilmemiş JMP'ler MOV #x,R0 yerine 2 byte'lık Format 3 atlama olarak kalır.
+        PassTwo.TransformedInstruction ti;
+        if (isShortJumpCandidate(inst)) {
+            ti = PassTwo.shortJump(inst);
+            shortJumps.add(new ShortJump(inst, currentStatement));
+        } else {
+            ti = PassTwo.transformPseudoInstruction(inst);
+        }
+        inst.setTransformed(ti);
 
         String mnemonic = ti.mnemonic();
         String operandString = ti.operands();
@@ -267,62 +619,34 @@ public class PassOne {
             return;
         }
 
-        String[] operands = operandString.split(",");
-
-        // Format 1 (2 operand) ve Format 2 (1 operand) için
+        // Operandlar burada bir kez ayrıştırılır ve Instruction üzerinde PassTwo'ya taşınır.
+        // Format 3 (Jump) her zaman 2 byte'tır; genişletilen JMP ve BR Format 1'e dönüştürülür.
         if (format == 1 || format == 2) {
-            for (String opStr : operands) {
-                OperandInfo op = parseOperandForSize(opStr.trim());
-                if (op.requiresExtraWord) {
+            String[] operandTexts = operandString.split(",");
+            List<Operand> operands = new ArrayList<>(operandTexts.length);
+            for (String opStr : operandTexts) {
+                try {
+                    Operand op = Operand.parse(opStr, symbolTable);
+                    operands.add(op);
+                    if (op.requiresExtraWord()) {
+                        size += 2;
+                    }
+                } catch (RuntimeException e) {
+                    // Hata PassTwo'da listede raporlanır; geçersiz operand için ekstra kelime varsayılır.
+                    if (inst.getOperandError() == null) inst.setOperandError(e.getMessage());
                     size += 2;
                 }
             }
-        }
-        // Format 3 (Jump) her zaman 2 byte'tır ve JMP/BR zaten Format 1'e dönüştürüldüğü için bu mantık doğrudur.
-
-        sectionManager.incrementSPC(size);
-    }
-
-    private OperandInfo parseOperandForSize(String operand) {
-        operand = operand.trim();
-        if (operand.startsWith("##")) {
-            operand = operand.substring(1);
-        }
-
-        // Register direct, indirect, and auto-increment do not require an extra word.
-        if (RegisterTable.isRegister(operand) ||
-            (operand.startsWith("@") && RegisterTable.isRegister(operand.substring(1, operand.endsWith("+") ? operand.length() - 1 : operand.length())))) {
-            return new OperandInfo(false);
-        }
-
-        // Immediate values (#...) check for constant generator
-        if (operand.startsWith("#")) {
-            String valueStr = operand.substring(1);
+            inst.setOperands(operands);
+        } else if (format == 3) {
             try {
-                int value = LiteralResolver.resolve(valueStr, symbolTable);
-                switch (value) {
-                    case 0: case 1: case 2: case -1: case 4: case 8:
-                        return new OperandInfo(false); // Handled by constant generator
-                    default:
-                        return new OperandInfo(true);  // Needs an extra word
-                }
-            } catch (Exception e) {
-                // If resolving fails, it's likely a symbolic expression that needs relocation.
-                // e.g., #LABEL. This always requires an extra word.
-                return new OperandInfo(true);
+                inst.setOperands(List.of(Operand.jumpTarget(operandString, symbolTable)));
+            } catch (RuntimeException e) {
+                inst.setOperandError(e.getMessage());
             }
         }
 
-        // Symbolic addresses, absolute addresses (&...), and indexed addressing (X(R))
-        // all require an extra word.
-        return new OperandInfo(true);
-    }
-
-    private static class OperandInfo {
-        boolean requiresExtraWord;
-        OperandInfo(boolean req) {
-            this.requiresExtraWord = req;
-        }
+        sectionManager.incrementSPC(size);
     }
 
     private int countOperands(String operandString) {
@@ -332,13 +656,7 @@ public class PassOne {
 
     private int determineFormat(String mnemonic) {
         if (mnemonic.startsWith(".")) return 0;
-
-        String bin = new OpcodeTable().getOpcode(mnemonic);
-        if (bin.length() == 4) return 1;
-        if (bin.length() == 9) return 2;
-        if (bin.length() == 6) return 3;
-
-        return 0;
+        return OpcodeTable.getDescriptor(mnemonic).format();
     }
 
     public List<Instruction> getInstructions() {
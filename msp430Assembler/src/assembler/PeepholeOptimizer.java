@@ -0,0 +1,248 @@
+package assembler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PassOne ile PassTwo arasında çalışan isteğe bağlı peephole optimizasyonu.
+ * Instruction listesindeki yaygın verimsiz MSP430 dizilerini bulur ve bunları
+ * kaynak satır sırasına (statementIndex) göre satır değişiklikleri olarak döner.
+ * PassOne değişiklikleri uygulayarak geçişi yeniden çalıştırır; böylece etiket adresleri,
+ * .equ değerleri ve SPC'ler SectionManager üzerinden doğal olarak yeniden hesaplanır.
+ *
+ * Kurallar (desenin ilk komutundan sonrakiler etiketsiz ve bitişik olmalıdır; etiketler her zaman korunur):
+ *  - CALL #f hemen ardından RET  -> JMP f (tail call; JMP menzile göre kısa/uzun seçilir)
+ *  - MOV Rx,Rx (word, R3 hariç)   -> kaldırılır
+ *  - Art arda iki aynı CMP/TST     -> ikincisi kaldırılır (sadece register/sabit operandlarla; PC ve SR hariç)
+ *  - ADD/SUB #1 (INC/DEC) zinciri  -> tek ADD/SUB #n (N ve Z aynıdır, C ve V farklı olabilir; bu yüzden
+ *                                    sadece zincirden sonra C/V okunmadan yeniden yazılıyorsa, ör. ardından
+ *                                    CMP/ADD/SUB/AND/XOR/BIT geliyorsa. Koşullu atlama, JMP/CALL/RET, ADDC/SUBC/
+ *                                    DADD/RRC, SR okuyan komut, etiket veya kod sonu gelirse katlanmaz.)
+ */
+public class PeepholeOptimizer {
+
+    /**
+     * Bir satırın yerine geçecek metin ("" = satırı kaldır), listelemede gösterilecek açıklama,
+     * desenin ilk satırı (anchor) ve desenin kararının bağlı olduğu son satır (dependsUntil; desenin dışında
+     * kalan ve değiştirilmeyen bir satır olabilir). Artımlı derleme bir desenin parçalarını birlikte geçersiz
+     * kılmak için anchor ve dependsUntil'i kullanır.
+     */
+    public record Rewrite(String replacement, String note, int anchor, int dependsUntil) {
+        public Rewrite(String replacement, String note, int anchor) {
+            this(replacement, note, anchor, anchor);
+        }
+    }
+
+    private PeepholeOptimizer() {
+    }
+
+    /**
+     * Listeyi tarar ve yeni satır değişikliklerini döner. 'locked' içindeki satırlara dokunan desenler atlanır;
+     * böylece daha önce değiştirilmiş satırlar tekrar eşleşmez ve tekrarlanan geçişler sonlanır.
+     */
+    public static Map<Integer, Rewrite> findRewrites(List<Instruction> instructions, Set<Integer> locked) {
+        Map<Integer, Rewrite> rewrites = new HashMap<>();
+        int i = 0;
+        while (i < instructions.size()) {
+            Instruction inst = instructions.get(i);
+            if (!isCode(inst) || locked.contains(inst.getStatementIndex())) {
+                i++;
+                continue;
+            }
+            int consumed = tailCall(instructions, i, locked, rewrites);
+            if (consumed == 0) consumed = selfMove(inst, rewrites);
+            if (consumed == 0) consumed = repeatedCompare(instructions, i, locked, rewrites);
+            if (consumed == 0) consumed = incrementChain(instructions, i, locked, rewrites);
+            i += Math.max(consumed, 1);
+        }
+        return rewrites;
+    }
+
+    /** CALL #f + RET -> JMP f */
+    private static int tailCall(List<Instruction> list, int i, Set<Integer> locked, Map<Integer, Rewrite> rewrites) {
+        Instruction call = list.get(i);
+        if (!"CALL".equals(call.getMnemonic())) return 0;
+        String target = call.getOperandString() == null ? "" : call.getOperandString().trim();
+        if (!target.startsWith("#") || target.length() < 2) return 0;
+
+        Instruction ret = next(list, i, locked);
+        if (ret == null || !"RET".equals(ret.getMnemonic())) return 0;
+
+        String expr = target.substring(1).trim();
+        int anchor = call.getStatementIndex();
+        rewrites.put(anchor, new Rewrite(labelPrefix(call) + "JMP " + expr,
+                "CALL " + target + " + RET -> JMP " + expr + " (tail call)", anchor));
+        rewrites.put(ret.getStatementIndex(), new Rewrite("", null, anchor));
+        return 2;
+    }
+
+    /** MOV Rx,Rx -> kaldır. MOV.B yüksek byte'ı temizlediği, R3 ise NOP kalıbı olduğu için dokunulmaz. */
+    private static int selfMove(Instruction inst, Map<Integer, Rewrite> rewrites) {
+        if (!"MOV".equals(inst.getMnemonic()) || inst.getBw() != 0) return 0;
+        List<Operand> ops = inst.getOperands();
+        if (ops.size() != 2 || !isRegister(ops.get(0)) || !isRegister(ops.get(1))) return 0;
+        int reg = ops.get(0).getRegister();
+        if (reg != ops.get(1).getRegister() || reg == 3) return 0;
+
+        // Etiketli satırda etiket korunur, sadece komut kaldırılır
+        String replacement = inst.getLabel() != null ? inst.getLabel() + ":" : "";
+        rewrites.put(inst.getStatementIndex(), new Rewrite(replacement, inst.getRawLine() + " kaldırıldı (etkisiz)",
+                inst.getStatementIndex()));
+        return 1;
+    }
+
+    /** Art arda iki aynı CMP/TST -> ikincisi kaldırılır; bayraklar zaten aynı değeri taşır. */
+    private static int repeatedCompare(List<Instruction> list, int i, Set<Integer> locked, Map<Integer, Rewrite> rewrites) {
+        Instruction first = list.get(i);
+        String mnemonic = first.getMnemonic();
+        if (!"CMP".equals(mnemonic) && !"TST".equals(mnemonic)) return 0;
+        if (!hasOnlyRegisterOrConstantOperands(first)) return 0;
+
+        Instruction second = next(list, i, locked);
+        if (second == null || !mnemonic.equals(second.getMnemonic()) || second.getBw() != first.getBw()) return 0;
+        if (!normalize(first.getOperandString()).equals(normalize(second.getOperandString()))) return 0;
+
+        rewrites.put(second.getStatementIndex(), new Rewrite("", second.getRawLine() + " kaldırıldı (tekrarlanan karşılaştırma)",
+                first.getStatementIndex()));
+        return 2;
+    }
+
+    /** ADD/SUB #1 (INC/DEC) zinciri -> ADD/SUB #n */
+    private static int incrementChain(List<Instruction> list, int i, Set<Integer> locked, Map<Integer, Rewrite> rewrites) {
+        Instruction first = list.get(i);
+        int step = unitStep(first);
+        if (step == 0) return 0;
+        int register = first.getOperands().get(1).getRegister();
+
+        int net = step;
+        int count = 1;
+        int index = i;
+        while (true) {
+            Instruction candidate = next(list, index, locked);
+            if (candidate == null || candidate.getBw() != first.getBw()) break;
+            int s = unitStep(candidate);
+            if (s == 0 || candidate.getOperands().get(1).getRegister() != register) break;
+            net += s;
+            count++;
+            index++;
+        }
+        if (count < 2 || net == 0) return 0;
+        int decidedBy = carryOverflowWriter(list, index, locked);
+        if (decidedBy < 0) return 0;
+
+        String suffix = first.getBw() == 1 ? ".B" : "";
+        String folded = (net > 0 ? "ADD" : "SUB") + suffix + " #" + Math.abs(net) + ", R" + register;
+        int anchor = first.getStatementIndex();
+        rewrites.put(anchor, new Rewrite(labelPrefix(first) + folded, count + " adet ADD/SUB #1 -> " + folded, anchor, decidedBy));
+        for (int k = i + 1; k <= index; k++) {
+            rewrites.put(list.get(k).getStatementIndex(), new Rewrite("", null, anchor));
+        }
+        return count;
+    }
+
+    /** ADD #1,Rn / INC Rn için +1, SUB #1,Rn / DEC Rn için -1, diğerleri için 0. PC, SR ve CG hariç. */
+    private static int unitStep(Instruction inst) {
+        PassTwo.TransformedInstruction ti = inst.getTransformed();
+        if (ti == null || inst.getOperandError() != null) return 0;
+        List<Operand> ops = inst.getOperands();
+        if (ops.size() != 2) return 0;
+        Operand src = ops.get(0);
+        Operand dst = ops.get(1);
+        boolean one = src.getMode() == Operand.Mode.CONSTANT && src.getRegister() == 3 && src.getAddressingBits() == 1;
+        if (!one || !isRegister(dst) || dst.getRegister() == 0 || dst.getRegister() == 2 || dst.getRegister() == 3) return 0;
+        if ("ADD".equals(ti.mnemonic())) return 1;
+        if ("SUB".equals(ti.mnemonic())) return -1;
+        return 0;
+    }
+
+    /**
+     * i'deki komuttan sonra C ve V bayraklarını okumadan yeniden yazan komutun satır sırası. Bayraklara dokunmayan
+     * komutlar (MOV, PUSH, SWPB, BIC, BIS) atlanır; atlama, SR okuma/yazma veya belirsiz bir durumda -1 döner.
+     */
+    private static int carryOverflowWriter(List<Instruction> list, int i, Set<Integer> locked) {
+        for (Instruction inst = next(list, i, locked); inst != null; inst = next(list, ++i, locked)) {
+            PassTwo.TransformedInstruction ti = inst.getTransformed();
+            if (ti == null || touchesStatusOrPc(inst)) return -1;
+            switch (ti.mnemonic()) {
+                case "ADD", "SUB", "CMP", "AND", "XOR", "BIT", "RRA", "SXT":
+                    return inst.getStatementIndex(); // C ve V'yi okumadan yazar
+                case "MOV", "PUSH", "SWPB", "BIC", "BIS":
+                    continue; // Bayraklara dokunmaz
+                default:
+                    return -1; // Atlamalar, CALL/RETI, ADDC/SUBC/DADD/RRC
+            }
+        }
+        return -1;
+    }
+
+    /** Operandlardan biri SR'yi (sabit üreteci veya &mutlak adres olarak değil) okuyor/yazıyor ya da hedef PC mi? */
+    private static boolean touchesStatusOrPc(Instruction inst) {
+        List<Operand> ops = inst.getOperands();
+        for (Operand op : ops) {
+            Operand.Mode mode = op.getMode();
+            boolean usesSr = mode == Operand.Mode.REGISTER || mode == Operand.Mode.INDEXED
+                    || mode == Operand.Mode.INDIRECT || mode == Operand.Mode.INDIRECT_AUTOINCREMENT;
+            if (usesSr && op.getRegister() == 2) return true;
+        }
+        return !ops.isEmpty() && isRegister(ops.get(ops.size() - 1)) && ops.get(ops.size() - 1).getRegister() == 0;
+    }
+
+    /**
+     * Bellekte hemen ardından gelen komut; arada etiket (sadece etiket satırı dahil),
+     * kilitli satır, section değişimi veya .org boşluğu varsa null döner.
+     */
+    private static Instruction next(List<Instruction> list, int i, Set<Integer> locked) {
+        if (i + 1 >= list.size()) return null;
+        Instruction current = list.get(i);
+        Instruction next = list.get(i + 1);
+        if (!isCode(next) || next.getLabel() != null || locked.contains(next.getStatementIndex())) return null;
+        if (current.getSectionId() != next.getSectionId()) return null;
+        if (next.getAddress() != current.getAddress() + sizeOf(current)) return null;
+        return next;
+    }
+
+    private static int sizeOf(Instruction inst) {
+        int size = 2;
+        for (Operand op : inst.getOperands()) {
+            if (op.requiresExtraWord()) size += 2;
+        }
+        return size;
+    }
+
+    private static boolean isCode(Instruction inst) {
+        return inst.getMnemonic() != null && !inst.getMnemonic().startsWith(".")
+                && inst.getOperandError() == null && inst.getStatementIndex() >= 0;
+    }
+
+    private static boolean isRegister(Operand op) {
+        return op.getMode() == Operand.Mode.REGISTER;
+    }
+
+    /** Sadece register ve sabit operandlar; PC (R0) ve SR (R2) her okunduğunda farklı değer verdiği için hariç. */
+    private static boolean hasOnlyRegisterOrConstantOperands(Instruction inst) {
+        for (Operand op : inst.getOperands()) {
+            Operand.Mode mode = op.getMode();
+            if (mode != Operand.Mode.REGISTER && mode != Operand.Mode.CONSTANT && mode != Operand.Mode.IMMEDIATE) {
+                return false;
+            }
+            if (mode == Operand.Mode.REGISTER && (op.getRegister() == 0 || op.getRegister() == 2)) return false;
+        }
+        return !inst.getOperands().isEmpty();
+    }
+
+    private static String labelPrefix(Instruction inst) {
+        return inst.getLabel() != null ? inst.getLabel() + ": " : "";
+    }
+
+    private static String normalize(String operands) {
+        if (operands == null) return "";
+        StringBuilder sb = new StringBuilder(operands.length());
+        for (int i = 0; i < operands.length(); i++) {
+            char c = operands.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,291 @@
+package assembler;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Değiştirilemez, yapısal paylaşımlı hash haritası (HAMT: hash array mapped trie).
+ * put yeni bir harita döner; sadece kökten değişen yaprağa kadar olan yol (en fazla 7 düğüm) kopyalanır,
+ * geri kalan düğümler eski haritayla paylaşılır. Bu sayede bir haritanın "kopyası" O(1)'dir ve iki sürüm
+ * arasındaki fark sadece farklı düğümler gezilerek bulunur (diff).
+ *
+ * Her seviye hash'in 5 bitini kullanır; tam hash çakışmaları Collision düğümünde tutulur.
+ * Gezinme sırası hash'e bağlıdır ve aynı anahtar kümesi için her zaman aynıdır.
+ */
+public final class PersistentMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentMap EMPTY = new PersistentMap<>(null, 0);
+
+    private sealed interface Node permits Leaf, Branch, Collision {
+    }
+
+    /** Tek anahtar/değer; Map.Entry olarak doğrudan dışarı verilir. */
+    private record Leaf(int hash, Object key, Object value) implements Node, Map.Entry<Object, Object> {
+        @Override public Object getKey() { return key; }
+        @Override public Object getValue() { return value; }
+        @Override public Object setValue(Object v) { throw new UnsupportedOperationException(); }
+
+        // Map.Entry sözleşmesi (record'un varsayılanı hash alanını da katardı)
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    /** bitmap'in her biti, 5 bitlik hash parçasının o değerde bir çocuğu olduğunu gösterir. */
+    private record Branch(int bitmap, Node[] children) implements Node {
+    }
+
+    /** Hash'i tamamen aynı olan anahtarlar */
+    private record Collision(int hash, Leaf[] leaves) implements Node {
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Leaf leaf = find(root, 0, hash(key), key);
+        return leaf != null ? (V) leaf.value() : null;
+    }
+
+    public boolean containsKey(Object key) {
+        return find(root, 0, hash(key), key) != null;
+    }
+
+    /** key -> value eklenmiş (veya değiştirilmiş) yeni harita; değer aynıysa bu harita döner. */
+    public PersistentMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = insert(root, 0, new Leaf(hash(key), key, value), added);
+        if (newRoot == root) return this;
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, V> e : entries()) action.accept(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Bu harita ile 'other' arasında farklı olan anahtarları bildirir: sadece birinde bulunanlar ve
+     * her ikisinde bulunup same(buDeğer, diğerDeğer) false olanlar. İki haritanın paylaştığı düğümler
+     * gezilmez; ortak bir sürümden türemiş haritalarda maliyet değişen anahtar sayısıyla orantılıdır.
+     */
+    @SuppressWarnings("unchecked")
+    public void diff(PersistentMap<K, V> other, BiPredicate<? super V, ? super V> same, Consumer<? super K> changed) {
+        diff(root, other.root, 0, (BiPredicate<Object, Object>) same, (Consumer<Object>) changed);
+    }
+
+    /** Salt okunur Map görünümü; get/containsKey trie üzerinden çalışır, kopya oluşturmaz. */
+    public Map<K, V> asMap() {
+        return new AbstractMap<>() {
+            @Override public V get(Object key) { return PersistentMap.this.get(key); }
+            @Override public boolean containsKey(Object key) { return PersistentMap.this.containsKey(key); }
+            @Override public int size() { return size; }
+
+            @Override
+            public Set<Map.Entry<K, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override public Iterator<Map.Entry<K, V>> iterator() { return entries().iterator(); }
+                    @Override public int size() { return size; }
+                };
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterable<Map.Entry<K, V>> entries() {
+        return () -> (Iterator<Map.Entry<K, V>>) (Iterator<?>) new LeafIterator(root);
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int index(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private static Leaf find(Node node, int shift, int hash, Object key) {
+        while (node != null) {
+            if (node instanceof Leaf leaf) {
+                return leaf.hash() == hash && Objects.equals(leaf.key(), key) ? leaf : null;
+            }
+            if (node instanceof Collision c) {
+                if (c.hash() != hash) return null;
+                for (Leaf leaf : c.leaves()) {
+                    if (Objects.equals(leaf.key(), key)) return leaf;
+                }
+                return null;
+            }
+            Branch b = (Branch) node;
+            int bit = 1 << index(hash, shift);
+            if ((b.bitmap() & bit) == 0) return null;
+            node = b.children()[Integer.bitCount(b.bitmap() & (bit - 1))];
+            shift += BITS;
+        }
+        return null;
+    }
+
+    private static Node insert(Node node, int shift, Leaf leaf, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return leaf;
+        }
+        if (node instanceof Leaf existing) {
+            if (existing.hash() == leaf.hash() && Objects.equals(existing.key(), leaf.key())) {
+                return existing.value() == leaf.value() ? existing : leaf;
+            }
+            added[0] = true;
+            if (existing.hash() == leaf.hash()) return new Collision(leaf.hash(), new Leaf[]{existing, leaf});
+            return merge(shift, existing, existing.hash(), leaf);
+        }
+        if (node instanceof Collision c) {
+            if (c.hash() != leaf.hash()) {
+                added[0] = true;
+                return merge(shift, c, c.hash(), leaf);
+            }
+            Leaf[] leaves = c.leaves();
+            for (int i = 0; i < leaves.length; i++) {
+                if (Objects.equals(leaves[i].key(), leaf.key())) {
+                    if (leaves[i].value() == leaf.value()) return c;
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision(c.hash(), copy);
+                }
+            }
+            added[0] = true;
+            Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+            copy[leaves.length] = leaf;
+            return new Collision(c.hash(), copy);
+        }
+
+        Branch b = (Branch) node;
+        int bit = 1 << index(leaf.hash(), shift);
+        int pos = Integer.bitCount(b.bitmap() & (bit - 1));
+        Node[] children = b.children();
+        if ((b.bitmap() & bit) != 0) {
+            Node child = insert(children[pos], shift + BITS, leaf, added);
+            if (child == children[pos]) return b;
+            Node[] copy = children.clone();
+            copy[pos] = child;
+            return new Branch(b.bitmap(), copy);
+        }
+        added[0] = true;
+        Node[] copy = new Node[children.length + 1];
+        System.arraycopy(children, 0, copy, 0, pos);
+        copy[pos] = leaf;
+        System.arraycopy(children, pos, copy, pos + 1, children.length - pos);
+        return new Branch(b.bitmap() | bit, copy);
+    }
+
+    /** Hash'leri farklı iki düğümü, ayrıştıkları seviyeye kadar inen dallarla birleştirir. */
+    private static Node merge(int shift, Node a, int hashA, Leaf b) {
+        int ia = index(hashA, shift);
+        int ib = index(b.hash(), shift);
+        if (ia == ib) return new Branch(1 << ia, new Node[]{merge(shift + BITS, a, hashA, b)});
+        return ia < ib
+                ? new Branch((1 << ia) | (1 << ib), new Node[]{a, b})
+                : new Branch((1 << ia) | (1 << ib), new Node[]{b, a});
+    }
+
+    private static void diff(Node a, Node b, int shift, BiPredicate<Object, Object> same, Consumer<Object> changed) {
+        if (a == b) return;
+        if (a instanceof Branch ba && b instanceof Branch bb) {
+            int bits = ba.bitmap() | bb.bitmap();
+            while (bits != 0) {
+                int bit = bits & -bits;
+                bits &= bits - 1;
+                Node ca = (ba.bitmap() & bit) != 0 ? ba.children()[Integer.bitCount(ba.bitmap() & (bit - 1))] : null;
+                Node cb = (bb.bitmap() & bit) != 0 ? bb.children()[Integer.bitCount(bb.bitmap() & (bit - 1))] : null;
+                diff(ca, cb, shift + BITS, same, changed);
+            }
+            return;
+        }
+        // Farklı türde düğümler (yaprak, çakışma, eksik dal): iki alt ağacı anahtar anahtar karşılaştır
+        for (Iterator<Leaf> it = new LeafIterator(a); it.hasNext(); ) {
+            Leaf la = it.next();
+            Leaf lb = find(b, shift, la.hash(), la.key());
+            if (lb == null || (la.value() != lb.value() && !same.test(la.value(), lb.value()))) changed.accept(la.key());
+        }
+        for (Iterator<Leaf> it = new LeafIterator(b); it.hasNext(); ) {
+            Leaf lb = it.next();
+            if (find(a, shift, lb.hash(), lb.key()) == null) changed.accept(lb.key());
+        }
+    }
+
+    /** Yaprakları trie sırasıyla gezer (açık yığın; özyineleme yok). */
+    private static final class LeafIterator implements Iterator<Leaf> {
+        private final ArrayDeque<Node> stack = new ArrayDeque<>();
+        private Leaf next;
+
+        LeafIterator(Node root) {
+            if (root != null) stack.push(root);
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                if (node instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                Node[] children = node instanceof Branch b ? b.children() : ((Collision) node).leaves();
+                for (int i = children.length - 1; i >= 0; i--) stack.push(children[i]);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Leaf next() {
+            if (next == null) throw new NoSuchElementException();
+            Leaf result = next;
+            advance();
+            return result;
+        }
+    }
+}
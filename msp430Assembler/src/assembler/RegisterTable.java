@@ -25,8 +25,36 @@ public class RegisterTable {
     }
 
     /** verilen stringin register olup olamdığını kontrol etme*/
-    public static boolean isRegister(String reg) {
-        return registers.containsKey(reg.toUpperCase());
+    public static boolean isRegister(CharSequence reg) {
+        return registerNumber(reg, 0, reg.length()) >= 0;
+    }
+
+    /**
+     * s[start, end) aralığındaki register ismini (R0–R15, PC, SP, SR, CG; büyük/küçük harf duyarsız)
+     * String üretmeden tanır. Register değilse -1 döner.
+     */
+    public static int registerNumber(CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length < 2 || length > 3) return -1;
+        char c0 = (char) (s.charAt(start) & ~0x20); // ASCII harfi büyük harfe katla
+        char c1 = s.charAt(start + 1);
+
+        if (c0 == 'R') {
+            if (c1 < '0' || c1 > '9') return -1;
+            if (length == 2) return c1 - '0';
+            char c2 = s.charAt(start + 2);
+            if (c1 != '1' || c2 < '0' || c2 > '5') return -1; // R10–R15, baştaki sıfıra izin yok
+            return 10 + (c2 - '0');
+        }
+        if (length != 2) return -1;
+
+        c1 = (char) (c1 & ~0x20);
+        switch (c0) {
+            case 'P': return c1 == 'C' ? 0 : -1;
+            case 'S': return c1 == 'P' ? 1 : c1 == 'R' ? 2 : -1;
+            case 'C': return c1 == 'G' ? 3 : -1;
+            default:  return -1;
+        }
     }
 
     /**
@@ -34,9 +62,14 @@ public class RegisterTable {
      * Hatalı isim verilirse exception fırlatır.
      */
     public static int getRegisterNumber(String reg) {
-        Integer number = registers.get(reg.toUpperCase());
-        if (number == null) {
-            throw new IllegalArgumentException("Geçersiz register ismi: " + reg);
+        return getRegisterNumber(reg, 0, reg.length());
+    }
+
+    /** Aralık sürümü; String sadece hata mesajı için üretilir. */
+    public static int getRegisterNumber(CharSequence s, int start, int end) {
+        int number = registerNumber(s, start, end);
+        if (number < 0) {
+            throw new IllegalArgumentException("Geçersiz register ismi: " + s.subSequence(start, end));
         }
         return number;
     }
@@ -14,6 +14,7 @@ public class RelocationEntry {
     private final String symbol;            // Hangi sembol çözümlenecek
     private final int address;             // Hangi adres çözümlenecek
     private final RelocationType type;
+    private int sourceFileId = IdRegistry.NONE; // Linkleme sırasında: entry'nin geldiği .obj dosyasının kimliği
 
     public RelocationEntry(String symbol, int address, RelocationType type) {
         this.symbol = symbol;
@@ -33,6 +34,22 @@ public class RelocationEntry {
         return type;
     }
 
+    public String getSourceFile() {
+        return IdRegistry.FILES.name(sourceFileId);
+    }
+
+    public void setSourceFile(String sourceFile) {
+        this.sourceFileId = IdRegistry.FILES.idOf(sourceFile);
+    }
+
+    public int getSourceFileId() {
+        return sourceFileId;
+    }
+
+    public void setSourceFileId(int sourceFileId) {
+        this.sourceFileId = sourceFileId;
+    }
+
     @Override
     public String toString() {
         return String.format("RelocationEntry{symbol='%s', address=0x%04X, type=%s}", symbol, address, type);
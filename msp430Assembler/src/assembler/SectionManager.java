@@ -1,65 +1,106 @@
 package assembler;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Her section için SPC (Section Program Counter) yöneticisi.
  * MSP430'un .text, .data, .bss gibi direktiflerine uygun.
  * Dinamik section desteği (.sect ve .usect) eklendi.
+ *
+ * Section'lar IdRegistry.SECTIONS kimlikleriyle tutulur; SPC'ler kimlikle indekslenen bir int
+ * dizisindedir. Her satırda yapılan SPC okuma/artırma işlemleri kutulama ve hash araması yapmaz.
  */
 public class SectionManager {
 
-    private final Map<String, Integer> spcMap;
-    private String currentSection;
+    public static final int TEXT = IdRegistry.SECTIONS.idOf(".text");
+    public static final int DATA = IdRegistry.SECTIONS.idOf(".data");
+    public static final int BSS = IdRegistry.SECTIONS.idOf(".bss");
+
+    private int[] spc;
+    private final BitSet known; // Bu yöneticide tanımlı section'lar (getAllSPCs için)
+    private int currentSection;
 
     public SectionManager() {
-        spcMap = new HashMap<>();
-        spcMap.put(".text", 0);
-        spcMap.put(".data", 0);
-        spcMap.put(".bss", 0);
-        currentSection = ".text"; // Varsayılan
+        spc = new int[Math.max(4, IdRegistry.SECTIONS.size())];
+        known = new BitSet();
+        known.set(TEXT);
+        known.set(DATA);
+        known.set(BSS);
+        currentSection = TEXT; // Varsayılan
+    }
+
+    private SectionManager(SectionManager other) {
+        spc = Arrays.copyOf(other.spc, other.spc.length);
+        known = (BitSet) other.known.clone();
+        currentSection = other.currentSection;
+    }
+
+    /** SPC tablosu ve aktif section'ın bağımsız kopyası (PassOne checkpoint'leri için). */
+    public SectionManager copy() {
+        return new SectionManager(this);
     }
 
     /**
      * Mevcut aktif section'ı değiştirir. Eğer tanımsızsa dinamik olarak ekler.
      */
     public void setActiveSection(String section) {
-        if (!spcMap.containsKey(section)) {
-            spcMap.put(section, 0);  // .sect veya .usect ile gelen yeni section
-        }
-        this.currentSection = section;
+        setActiveSection(IdRegistry.SECTIONS.idOf(section));
+    }
+
+    public void setActiveSection(int sectionId) {
+        ensure(sectionId); // .sect veya .usect ile gelen yeni section 0'dan başlar
+        this.currentSection = sectionId;
     }
 
     public String getActiveSection() {
+        return IdRegistry.SECTIONS.name(currentSection);
+    }
+
+    public int getActiveSectionId() {
         return currentSection;
     }
 
     public int getCurrentSPC() {
-        return spcMap.get(currentSection);
+        return spc[currentSection];
     }
 
     public void incrementSPC(int amount) {
-        spcMap.put(currentSection, spcMap.get(currentSection) + amount);
+        spc[currentSection] += amount;
     }
 
     public void setSPC(String section, int value) {
-        if (!spcMap.containsKey(section)) {
-            spcMap.put(section, value);  // bilinmeyen section'a SPC setle
-        } else {
-            spcMap.put(section, value);
-        }
+        setSPC(IdRegistry.SECTIONS.idOf(section), value);
+    }
+
+    public void setSPC(int sectionId, int value) {
+        ensure(sectionId); // bilinmeyen section'a SPC setle
+        spc[sectionId] = value;
     }
 
     public int getSPC(String section) {
-        return spcMap.getOrDefault(section, 0);
+        int id = IdRegistry.SECTIONS.find(section);
+        return id >= 0 && known.get(id) ? spc[id] : 0;
     }
 
     /**
      * SPC tablosunun tümünü dışarı verir (debug veya analiz için).
      */
     public Map<String, Integer> getAllSPCs() {
-        return new HashMap<>(spcMap);
+        Map<String, Integer> all = new LinkedHashMap<>();
+        for (int id = known.nextSetBit(0); id >= 0; id = known.nextSetBit(id + 1)) {
+            all.put(IdRegistry.SECTIONS.name(id), spc[id]);
+        }
+        return all;
+    }
+
+    private void ensure(int sectionId) {
+        if (sectionId >= spc.length) {
+            spc = Arrays.copyOf(spc, Math.max(sectionId + 1, 2 * spc.length));
+        }
+        known.set(sectionId);
     }
 
     public boolean isInitializedSection(String sectionName) {
@@ -1,36 +1,62 @@
 package assembler;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-/** Etiket ve Labellerin tutulduğu sınıf */
+/**
+ * Etiket ve Labellerin tutulduğu sınıf.
+ *
+ * Semboller kalıcı (persistent) bir HAMT'ta tutulur; snapshot() tabloyu kopyalamadan O(1)'de çatallar.
+ * Çataldan sonra iki tablo da aynı girdileri paylaşır ve girdiler yazmaya kapanır (copy-on-write):
+ * bir girdiyi değiştirmek için edit(label) ile tabloya özel kopyası alınır. Girdinin doğrudan
+ * değiştirilebilmesi için oluşturan tablonun o anki "edit" jetonuna sahip olması gerekir.
+ */
 public class SymbolTable {
 
-    /** Etiketleri ve sembol bilgilerini tutan hashmap */
-    private final HashMap<String, SymbolEntry> symbolMap;
+    /** Etiketleri ve sembol bilgilerini tutan kalıcı harita */
+    private PersistentMap<String, SymbolEntry> symbolMap = PersistentMap.empty();
+    /** Bu jetonla oluşturulan girdiler bu tabloya özeldir; snapshot() jetonu yeniler. */
+    private Object editToken = new Object();
+
+    /**
+     * Adrese göre sıralı ters indeks (adres -> sembol): ikili arama ile O(log n) sorgu.
+     * Sembol eklendiğinde/silindiğinde veya bir girdinin adresi değiştiğinde geçersiz olur ve ilk
+     * sorguda yeniden kurulur. Eşit adresli semboller symbolMap'teki sıralarını korur.
+     */
+    private int[] indexAddresses;
+    private SymbolEntry[] indexEntries;
 
     /** Yapıcı fonksiyon */
     public SymbolTable() {
-        symbolMap = new HashMap<>();
     }
 
     /** yeni etiket ve adresini eklemek için kullanılan fonksiyon */
     public void addSymbol(String label, int address, String section) {
+        addSymbol(label, address, IdRegistry.SECTIONS.idOf(section));
+    }
+
+    /** addSymbol'ün section kimliği (IdRegistry.SECTIONS) alan hali; PassOne bunu kullanır. */
+    public void addSymbol(String label, int address, int sectionId) {
         if (symbolMap.containsKey(label)) {
             throw new IllegalArgumentException("Sembol zaten mevcut: " + label);
         }
         // A simple label is LOCAL by default. It becomes DEF if exported via .def
-        SymbolEntry e = new SymbolEntry(label, address, SymbolEntry.Binding.LOCAL, section);
+        SymbolEntry e = new SymbolEntry(label, address, SymbolEntry.Binding.LOCAL, null);
+        e.setSectionId(sectionId);
         e.setDefined(true); // Label definition makes it "defined"
-        symbolMap.put(label, e);
+        put(e);
     }
 
     /** .global, .ref, .def gibi binding türleriyle sembol tanımlamak için */
     public void define(String label, int address, SymbolEntry.Binding binding) {
         // This method creates a new symbol, which is not yet "defined" by a label.
         // `isDefined` will be false by default in the constructor.
-            symbolMap.put(label, new SymbolEntry(label, address, binding, null)); // Section is unknown for REF/DEF
+            put(new SymbolEntry(label, address, binding, null)); // Section is unknown for REF/DEF
     }
 
     /** Etiketin bellek adresini döndüren fonk. etiketi bulamazsa hata verir */
@@ -49,12 +75,111 @@ public class SymbolTable {
 
     /** Tüm etiketleri siler */
     public void clear() {
-        symbolMap.clear();
+        symbolMap = PersistentMap.empty();
+        invalidateIndex();
+    }
+
+    private void put(SymbolEntry e) {
+        e.owner = this;
+        e.token = editToken;
+        symbolMap = symbolMap.put(e.getLabel(), e);
+        invalidateIndex();
+    }
+
+    /**
+     * Etiketin bu tabloda değiştirilebilir girdisini döner (yoksa null). Girdi bir anlık görüntüyle
+     * paylaşılıyorsa önce kopyalanır; diğer tablolar eski girdiyi görmeye devam eder.
+     */
+    public SymbolEntry edit(String label) {
+        SymbolEntry e = symbolMap.get(label);
+        if (e == null || (e.owner == this && e.token == editToken)) return e;
+        SymbolEntry copy = e.copy();
+        put(copy);
+        return copy;
+    }
+
+    /**
+     * Tablonun O(1) anlık görüntüsü: yapı paylaşılır, hiçbir girdi kopyalanmaz. Bundan sonra iki tablo
+     * birbirinden bağımsızdır; değişen girdiler edit() ile tembel olarak kopyalanır.
+     */
+    public SymbolTable snapshot() {
+        SymbolTable snapshot = new SymbolTable();
+        snapshot.symbolMap = symbolMap;
+        snapshot.indexAddresses = indexAddresses; // Diziler sadece değiştirilir, yerinde yazılmaz
+        snapshot.indexEntries = indexEntries;
+        editToken = new Object(); // Mevcut girdiler artık bu tablo için de salt okunur
+        return snapshot;
+    }
+
+    private void invalidateIndex() {
+        indexAddresses = null;
+        indexEntries = null;
+    }
+
+    private void ensureIndex() {
+        if (indexEntries != null) return;
+        SymbolEntry[] entries = new SymbolEntry[symbolMap.size()];
+        int[] n = {0};
+        symbolMap.forEach((label, entry) -> entries[n[0]++] = entry);
+        Arrays.sort(entries, Comparator.comparingInt(SymbolEntry::getAddress)); // kararlı sıralama
+        int[] addresses = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) addresses[i] = entries[i].getAddress();
+        indexEntries = entries;
+        indexAddresses = addresses;
+    }
+
+    /** Adresi 'address' ten küçük veya eşit olan son girdinin indeksi, yoksa -1 */
+    private int lastAtOrBefore(int address) {
+        ensureIndex();
+        int lo = 0, hi = indexAddresses.length - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (indexAddresses[mid] <= address) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        // Aynı adresteki sembollerden ilki
+        while (found > 0 && indexAddresses[found - 1] == indexAddresses[found]) found--;
+        return found;
+    }
+
+    /** Tam olarak bu adresteki sembolü döner (birden çoksa ilki), yoksa null. */
+    public SymbolEntry findByAddress(int address) {
+        int i = lastAtOrBefore(address);
+        return i >= 0 && indexAddresses[i] == address ? indexEntries[i] : null;
+    }
+
+    /** Adresi 'address' veya ondan önceki en yakın sembol (listeleme, harita, bellek görünümü için), yoksa null. */
+    public SymbolEntry findNearestAtOrBefore(int address) {
+        int i = lastAtOrBefore(address);
+        return i >= 0 ? indexEntries[i] : null;
+    }
+
+    /** Tüm semboller adrese göre sıralı (salt okunur). */
+    public List<SymbolEntry> getSymbolsByAddress() {
+        ensureIndex();
+        return Collections.unmodifiableList(Arrays.asList(indexEntries));
     }
 
     /** Salt okunur değiştirilmez listeyi döndürür */
     public Map<String, SymbolEntry> getAllSymbols() {
-        return Collections.unmodifiableMap(symbolMap);
+        return symbolMap.asMap();
+    }
+
+    /**
+     * Bu tablo ile 'other' arasında değeri, binding'i, tanımlı olma durumu veya section'ı farklı olan
+     * (ya da sadece birinde bulunan) sembolleri döner. Artımlı Pass 2 sadece bunlara bağlı komutları kodlar.
+     * İki tablo ortak bir anlık görüntüden türemişse paylaşılan alt ağaçlar hiç gezilmez.
+     */
+    public Set<String> changedSymbols(SymbolTable other) {
+        Set<String> changed = new HashSet<>();
+        symbolMap.diff(other.symbolMap, (entry, o) -> o.getAddress() == entry.getAddress()
+                && o.getBinding() == entry.getBinding() && o.isDefined() == entry.isDefined()
+                && o.getSectionId() == entry.getSectionId(), changed::add);
+        return changed;
     }
 
     /** Sembol tablosunu ekrana yazdırır. */
@@ -69,21 +194,26 @@ public class SymbolTable {
 
     /** .set için veya .def'ten sonra bulunan bir etiketi güncellemek için kullanılır */
     public void addOrUpdateSymbol(String label, int value, String section) {
-        SymbolEntry e = symbolMap.get(label);
+        addOrUpdateSymbol(label, value, IdRegistry.SECTIONS.idOf(section));
+    }
+
+    /** addOrUpdateSymbol'ün section kimliği alan hali */
+    public void addOrUpdateSymbol(String label, int value, int sectionId) {
+        SymbolEntry e = edit(label);
         if (e != null) {
             // It exists, update its value and mark as defined.
             // Do NOT change the binding. The .def directive is responsible for that.
             e.setAddress(value);
-            e.setSection(section);
+            e.setSectionId(sectionId);
             e.setDefined(true);
         } else {
             // It doesn't exist, so add it as a new, local, defined symbol.
-            addSymbol(label, value, section);
+            addSymbol(label, value, sectionId);
         }
     }
 
     public void setBinding(String label, SymbolEntry.Binding binding) {
-        SymbolEntry entry = symbolMap.get(label);
+        SymbolEntry entry = edit(label);
         if (entry != null) {
             entry.setBinding(binding);
         }
@@ -101,29 +231,54 @@ public class SymbolTable {
         private int address;
         private Binding binding;
         private boolean isDefined; // True if its address is set by a label
-        private String section;    // Hangi section'a ait (.text, .data, etc)
-        private String sourceFile; // Sembolün tanımlandığı kaynak dosya (.obj)
+        private int sectionId;     // Hangi section'a ait (.text, .data, etc); IdRegistry.SECTIONS kimliği
+        private int sourceFileId;  // Sembolün tanımlandığı kaynak dosya (.obj); IdRegistry.FILES kimliği
+        private SymbolTable owner; // Girdinin bulunduğu tablo; adres değişince ters indeksi geçersiz kılar
+        private Object token;      // Girdi eklendiğinde tablonun edit jetonu
 
         public SymbolEntry(String label, int address, Binding binding, String section) {
             this.label = label;
             this.address = address;
             this.binding = binding;
-            this.section = section;
+            this.sectionId = IdRegistry.SECTIONS.idOf(section);
             this.isDefined = false; // Default to not defined
-            this.sourceFile = null;
+            this.sourceFileId = IdRegistry.NONE;
         }
 
         public String getLabel() { return label; }
         public int getAddress() { return address; }
         public Binding getBinding() { return binding; }
         public boolean isDefined() { return isDefined; }
-        public String getSection() { return section; }
-        public String getSourceFile() { return sourceFile; }
-
-        public void setAddress(int address) { this.address = address; }
-        public void setBinding(Binding binding) { this.binding = binding; }
-        public void setDefined(boolean defined) { this.isDefined = defined; }
-        public void setSection(String section) { this.section = section; }
-        public void setSourceFile(String sourceFile) { this.sourceFile = sourceFile; }
+        public String getSection() { return IdRegistry.SECTIONS.name(sectionId); }
+        public String getSourceFile() { return IdRegistry.FILES.name(sourceFileId); }
+        public int getSectionId() { return sectionId; }
+        public int getSourceFileId() { return sourceFileId; }
+
+        SymbolEntry copy() {
+            SymbolEntry copy = new SymbolEntry(label, address, binding, null);
+            copy.sectionId = sectionId;
+            copy.isDefined = isDefined;
+            copy.sourceFileId = sourceFileId;
+            return copy;
+        }
+
+        /** Paylaşılan (anlık görüntüdeki) girdiler yerinde değiştirilemez. */
+        private void checkEditable() {
+            if (owner != null && owner.editToken != token) {
+                throw new IllegalStateException("Sembol '" + label + "' bir anlık görüntüyle paylaşılıyor; SymbolTable.edit ile değiştirilmeli.");
+            }
+        }
+
+        public void setAddress(int address) {
+            checkEditable();
+            this.address = address;
+            if (owner != null) owner.invalidateIndex();
+        }
+        public void setBinding(Binding binding) { checkEditable(); this.binding = binding; }
+        public void setDefined(boolean defined) { checkEditable(); this.isDefined = defined; }
+        public void setSection(String section) { checkEditable(); this.sectionId = IdRegistry.SECTIONS.idOf(section); }
+        public void setSourceFile(String sourceFile) { checkEditable(); this.sourceFileId = IdRegistry.FILES.idOf(sourceFile); }
+        public void setSectionId(int sectionId) { checkEditable(); this.sectionId = sectionId; }
+        public void setSourceFileId(int sourceFileId) { checkEditable(); this.sourceFileId = sourceFileId; }
     }
 }